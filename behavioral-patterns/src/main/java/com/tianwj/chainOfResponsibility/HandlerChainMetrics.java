@@ -0,0 +1,145 @@
+package com.tianwj.chainOfResponsibility;
+
+import com.tianwj.common.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 处理器链指标
+ * <p>
+ * 数组实现和链表实现的处理器链共用：按处理器统计调用次数、提前终止次数和耗时直方图（只统计处理器自身耗时），
+ * 并可按采样率记录单次请求经过了哪些处理器、各耗时多少，通过 {@link TraceListener} 回调。
+ * 处理器链未设置指标时不做任何计时。
+ * <p>
+ * 数组实现的逐个、批量、并行和自适应处理方法都会统计：批量方法每个处理器每批记录一次整批耗时，
+ * 并行方法的处理器分布在多个线程上，只统计不记录调用轨迹
+ *
+ * @author tianwj
+ */
+public class HandlerChainMetrics {
+    private final ConcurrentMap<Object, HandlerStats> statsMap = new ConcurrentHashMap<>();
+
+    /**
+     * 每多少次请求采样一次调用轨迹，0表示不采样
+     */
+    private final int traceSampleRate;
+    private final TraceListener traceListener;
+    private final AtomicLong requests = new AtomicLong();
+
+    public HandlerChainMetrics() {
+        this(0, null);
+    }
+
+    /**
+     * @param traceSampleRate 每多少次请求采样一次调用轨迹
+     * @param traceListener   调用轨迹回调
+     */
+    public HandlerChainMetrics(int traceSampleRate, TraceListener traceListener) {
+        if (traceSampleRate < 0) {
+            throw new IllegalArgumentException("traceSampleRate must not be negative");
+        }
+        if (traceSampleRate > 0 && traceListener == null) {
+            throw new NullPointerException("traceListener is null");
+        }
+        this.traceSampleRate = traceSampleRate;
+        this.traceListener = traceListener;
+    }
+
+    /**
+     * 获取处理器的统计，不存在时创建
+     */
+    public HandlerStats stats(Object handler) {
+        HandlerStats stats = statsMap.get(handler);
+        if (stats == null) {
+            stats = statsMap.computeIfAbsent(handler, k -> new HandlerStats());
+        }
+        return stats;
+    }
+
+    public Map<Object, HandlerStats> getStats() {
+        return Collections.unmodifiableMap(statsMap);
+    }
+
+    /**
+     * 请求开始，命中采样时返回新的调用轨迹，否则返回 null
+     */
+    public HandlerTrace startTrace() {
+        if (traceSampleRate == 0 || requests.incrementAndGet() % traceSampleRate != 0) {
+            return null;
+        }
+        return new HandlerTrace();
+    }
+
+    /**
+     * 记录一次处理器调用
+     *
+     * @param handler      处理器
+     * @param nanos        处理器自身耗时
+     * @param shortCircuit 是否在该处理器提前终止
+     * @param trace        采样中的调用轨迹，可以为 null
+     */
+    public void record(Object handler, long nanos, boolean shortCircuit, HandlerTrace trace) {
+        stats(handler).record(nanos, shortCircuit);
+        if (trace != null) {
+            trace.add(handler, nanos, shortCircuit);
+        }
+    }
+
+    /**
+     * 请求结束，回调采样的调用轨迹
+     */
+    public void finishTrace(HandlerTrace trace) {
+        if (trace != null) {
+            traceListener.onTrace(trace);
+        }
+    }
+
+    /**
+     * 调用轨迹回调
+     */
+    @FunctionalInterface
+    public interface TraceListener {
+
+        /**
+         * @param trace 一次请求的调用轨迹
+         */
+        void onTrace(HandlerTrace trace);
+    }
+
+    /**
+     * 单个处理器的统计
+     */
+    public static class HandlerStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder shortCircuits = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(long nanos, boolean shortCircuit) {
+            calls.increment();
+            if (shortCircuit) {
+                shortCircuits.increment();
+            }
+            latency.record(nanos);
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        /**
+         * 在该处理器终止链的次数
+         */
+        public long getShortCircuits() {
+            return shortCircuits.sum();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.tianwj.chainOfResponsibility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次请求经过处理器链的调用轨迹
+ *
+ * @author tianwj
+ */
+public class HandlerTrace {
+    private final List<Entry> entries = new ArrayList<>();
+
+    void add(Object handler, long nanos, boolean shortCircuit) {
+        entries.add(new Entry(handler, nanos, shortCircuit));
+    }
+
+    /**
+     * 按处理器完成的先后顺序
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public long getTotalNanos() {
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.nanos;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Entry entry : entries) {
+            if (builder.length() > 0) {
+                builder.append(" -> ");
+            }
+            builder.append(entry);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 单个处理器的调用记录
+     */
+    public static class Entry {
+        private final Object handler;
+        private final long nanos;
+        private final boolean shortCircuit;
+
+        Entry(Object handler, long nanos, boolean shortCircuit) {
+            this.handler = handler;
+            this.nanos = nanos;
+            this.shortCircuit = shortCircuit;
+        }
+
+        public Object getHandler() {
+            return handler;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public boolean isShortCircuit() {
+            return shortCircuit;
+        }
+
+        @Override
+        public String toString() {
+            return handler.getClass().getSimpleName() + "(" + nanos + "ns" + (shortCircuit ? ", stop" : "") + ")";
+        }
+    }
+}
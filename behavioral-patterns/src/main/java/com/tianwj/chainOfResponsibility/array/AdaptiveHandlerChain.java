@@ -0,0 +1,203 @@
+package com.tianwj.chainOfResponsibility.array;
+
+import com.tianwj.chainOfResponsibility.HandlerChainMetrics;
+import com.tianwj.chainOfResponsibility.HandlerTrace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应处理器链
+ * <p>
+ * 只适用于处理方法2（第一个返回 true 的处理器终止处理）：统计每个处理器的调用次数、命中次数和耗时，
+ * 每处理 reorderInterval 次请求，按"平均耗时 / 命中率"从小到大重新排列非顺序敏感的处理器，
+ * 使便宜且命中率高的处理器先执行，降低平均处理成本。顺序敏感的处理器保持在原位置，
+ * 其余处理器只在相邻两个顺序敏感处理器之间的区段内移动
+ *
+ * @author tianwj
+ */
+public class AdaptiveHandlerChain {
+    private final int reorderInterval;
+    private final Map<IHandler, HandlerStats> statsMap = new IdentityHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * 当前执行顺序，重新排序时整体替换
+     */
+    private volatile HandlerStats[] order;
+
+    /**
+     * 创建本链的处理器链指标，null表示只做自适应所需的统计
+     */
+    private final HandlerChainMetrics metrics;
+
+    AdaptiveHandlerChain(IHandler[] handlers, int reorderInterval, HandlerChainMetrics metrics) {
+        if (reorderInterval <= 0) {
+            throw new IllegalArgumentException("reorderInterval must be positive");
+        }
+        this.reorderInterval = reorderInterval;
+        this.metrics = metrics;
+        HandlerStats[] initial = new HandlerStats[handlers.length];
+        for (int i = 0; i < handlers.length; i++) {
+            initial[i] = new HandlerStats(handlers[i]);
+            statsMap.put(handlers[i], initial[i]);
+        }
+        this.order = initial;
+    }
+
+    /**
+     * 处理方法2，根据返回值判断是否继续执行
+     *
+     * @return 是否有处理器处理了请求
+     */
+    public boolean handleConditional() {
+        boolean handled = false;
+        HandlerTrace trace = metrics == null ? null : metrics.startTrace();
+        try {
+            for (HandlerStats stats : order) {
+                long start = System.nanoTime();
+                handled = stats.handler.handleConditional();
+                long nanos = System.nanoTime() - start;
+                stats.record(nanos, handled);
+                if (metrics != null) {
+                    metrics.record(stats.handler, nanos, handled, trace);
+                }
+                if (handled) {
+                    break;
+                }
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.finishTrace(trace);
+            }
+        }
+        if (requests.incrementAndGet() % reorderInterval == 0) {
+            reorder();
+        }
+        return handled;
+    }
+
+    /**
+     * 当前执行顺序
+     */
+    public List<IHandler> getOrder() {
+        List<IHandler> handlers = new ArrayList<>();
+        for (HandlerStats stats : order) {
+            handlers.add(stats.handler);
+        }
+        return handlers;
+    }
+
+    /**
+     * 按当前执行顺序返回各处理器的统计
+     */
+    public List<HandlerStats> getStats() {
+        return Collections.unmodifiableList(Arrays.asList(order.clone()));
+    }
+
+    public HandlerStats getStats(IHandler handler) {
+        return statsMap.get(handler);
+    }
+
+    /**
+     * 顺序敏感的处理器作为屏障保持原位，只在相邻两个屏障之间的区段内按 平均耗时/命中率 升序重排，
+     * 处理器不会越过顺序敏感的处理器
+     */
+    private synchronized void reorder() {
+        HandlerStats[] current = order;
+        // 先固定排序键，避免排序过程中统计值被并发更新导致比较结果不一致
+        Ranked[] ranked = new Ranked[current.length];
+        for (int i = 0; i < current.length; i++) {
+            ranked[i] = new Ranked(current[i]);
+        }
+        int segmentStart = 0;
+        for (int i = 0; i <= ranked.length; i++) {
+            if (i == ranked.length || ranked[i].stats.handler.isOrderSensitive()) {
+                Arrays.sort(ranked, segmentStart, i, Ranked.ORDER);
+                segmentStart = i + 1;
+            }
+        }
+        HandlerStats[] next = new HandlerStats[current.length];
+        for (int i = 0; i < ranked.length; i++) {
+            next[i] = ranked[i].stats;
+        }
+        order = next;
+    }
+
+    /**
+     * 重新排序时的统计快照
+     */
+    private static class Ranked {
+        private static final Comparator<Ranked> ORDER =
+                Comparator.<Ranked>comparingDouble(ranked -> ranked.costPerHit).thenComparingDouble(ranked -> ranked.averageNanos);
+
+        private final HandlerStats stats;
+        private final double costPerHit;
+        private final double averageNanos;
+
+        Ranked(HandlerStats stats) {
+            this.stats = stats;
+            this.costPerHit = stats.getCostPerHit();
+            this.averageNanos = stats.getAverageNanos();
+        }
+    }
+
+    /**
+     * 单个处理器的统计
+     */
+    public static class HandlerStats {
+        private final IHandler handler;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        HandlerStats(IHandler handler) {
+            this.handler = handler;
+        }
+
+        void record(long nanos, boolean hit) {
+            calls.increment();
+            totalNanos.add(nanos);
+            if (hit) {
+                hits.increment();
+            }
+        }
+
+        public IHandler getHandler() {
+            return handler;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public double getHitRate() {
+            long count = calls.sum();
+            return count == 0 ? 0 : (double) hits.sum() / count;
+        }
+
+        public double getAverageNanos() {
+            long count = calls.sum();
+            return count == 0 ? 0 : (double) totalNanos.sum() / count;
+        }
+
+        /**
+         * 每次命中的期望成本，越小越应该排在前面；从未命中的处理器为正无穷，排在最后
+         */
+        public double getCostPerHit() {
+            double hitRate = getHitRate();
+            return hitRate == 0 ? Double.POSITIVE_INFINITY : getAverageNanos() / hitRate;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.tianwj.chainOfResponsibility.array;
+
+import com.tianwj.chainOfResponsibility.HandlerChainMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 编译后的处理器链
+ * <p>
+ * 由 {@link HandlerChain#compile()} 生成，处理器固定下来，之后不能再添加处理器。
+ * 普通处理器链在同一个接口调用点上依次调用所有处理器，处理器类型超过两种后调用点变为多态，JIT 无法内联；
+ * 编译时为每个位置生成一个嵌套调用器（{@link SpecializedStep} 的独立副本），
+ * 每个调用器只调用一种处理器和下一个调用器，热路径上的调用点都是单态的，且不分配对象。
+ * <p>
+ * 每个位置会定义一个新类，编译应在处理器确定后进行一次，而不是每次请求都编译。
+ * 处理器链设置了指标时不生成调用器，按数组逐个计时
+ *
+ * @author tianwj
+ */
+public final class CompiledHandlerChain {
+    private final IHandler[] handlers;
+
+    /**
+     * 第一个位置的调用器，没有处理器时为 null
+     */
+    private final Step head;
+
+    /**
+     * 处理器链指标，null表示不统计
+     */
+    private final HandlerChainMetrics metrics;
+    private final List<IHandler> handlerList;
+
+    CompiledHandlerChain(IHandler[] handlers, HandlerChainMetrics metrics) {
+        this.handlers = handlers;
+        this.metrics = metrics;
+        this.handlerList = Arrays.asList(handlers);
+        this.head = metrics == null ? link(handlers) : null;
+    }
+
+    /**
+     * 处理方法1，所有处理器处理一遍
+     */
+    public void handleAll() {
+        if (metrics != null) {
+            InstrumentedHandlers.handleAll(handlerList, metrics);
+        } else if (head != null) {
+            head.handleAll();
+        }
+    }
+
+    /**
+     * 处理方法2，根据返回值判断是否继续执行
+     *
+     * @return 是否有处理器处理了请求
+     */
+    public boolean handleConditional() {
+        if (metrics != null) {
+            return InstrumentedHandlers.handleConditional(handlerList, metrics);
+        }
+        return head != null && head.handleConditional();
+    }
+
+    /**
+     * 批量处理方法1，每个处理器一次处理整个批次
+     *
+     * @param items 待处理元素
+     * @param size  有效元素个数
+     */
+    public void handleAll(Object[] items, int size) {
+        if (metrics != null) {
+            InstrumentedHandlers.handleAll(handlerList, metrics, items, size);
+        } else if (head != null) {
+            head.handleAll(items, size);
+        }
+    }
+
+    /**
+     * 批量处理方法2，每个处理器处理当前批次，被处理掉的元素不再交给后续处理器
+     *
+     * @param items 待处理元素，会被原地修改，返回后前 n 个元素为未被任何处理器处理的元素
+     * @param size  有效元素个数
+     * @return 未被任何处理器处理的元素个数 n
+     */
+    public int handleConditional(Object[] items, int size) {
+        if (metrics != null) {
+            return InstrumentedHandlers.handleConditional(handlerList, metrics, items, size);
+        }
+        if (head == null || size == 0) {
+            return size;
+        }
+        return head.handleConditional(items, size);
+    }
+
+    public int size() {
+        return handlers.length;
+    }
+
+    /**
+     * 从后往前为每个位置创建调用器；无法复制模板类时（例如读不到类文件）退回共用模板类，功能不变
+     */
+    private static Step link(IHandler[] handlers) {
+        byte[] template = readTemplate();
+        Step next = null;
+        for (int i = handlers.length - 1; i >= 0; i--) {
+            next = template == null ? new SpecializedStep(handlers[i], next) : specialize(template, handlers[i], next);
+        }
+        return next;
+    }
+
+    private static Step specialize(byte[] template, IHandler handler, Step next) {
+        try {
+            Class<?> stepClass = new StepClassLoader(CompiledHandlerChain.class.getClassLoader()).define(template);
+            Constructor<?> constructor = stepClass.getConstructor(IHandler.class, Step.class);
+            // 副本所在的运行时包与本类不同，包级私有的类需要放开访问检查
+            constructor.setAccessible(true);
+            return (Step) constructor.newInstance(handler, next);
+        } catch (ReflectiveOperationException | LinkageError | SecurityException e) {
+            return new SpecializedStep(handler, next);
+        }
+    }
+
+    private static byte[] readTemplate() {
+        String resource = SpecializedStep.class.getSimpleName() + ".class";
+        try (InputStream in = SpecializedStep.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 编译后链中的一个位置
+     * <p>
+     * 由各位置的调用器实现，须为 public，调用器副本由其他类加载器定义
+     */
+    public interface Step {
+        void handleAll();
+
+        boolean handleConditional();
+
+        void handleAll(Object[] items, int size);
+
+        int handleConditional(Object[] items, int size);
+    }
+
+    /**
+     * 每个实例只定义一个模板副本，父加载器负责其余所有类
+     */
+    private static final class StepClassLoader extends ClassLoader {
+        StepClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(byte[] bytes) {
+            return defineClass(SpecializedStep.class.getName(), bytes, 0, bytes.length);
+        }
+    }
+}
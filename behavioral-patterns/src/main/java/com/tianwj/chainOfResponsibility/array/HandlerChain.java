@@ -1,7 +1,14 @@
 package com.tianwj.chainOfResponsibility.array;
 
+import com.tianwj.chainOfResponsibility.HandlerChainMetrics;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 职责链模式，处理器链
@@ -13,6 +20,24 @@ import java.util.List;
 public class HandlerChain {
     private final List<IHandler> handlers = new ArrayList<>();
 
+    /**
+     * 处理器链指标，null表示不统计
+     */
+    private final HandlerChainMetrics metrics;
+
+    public HandlerChain() {
+        this(null);
+    }
+
+    /**
+     * 统计每个处理器的调用次数、提前终止次数和耗时
+     *
+     * @param metrics 处理器链指标
+     */
+    public HandlerChain(HandlerChainMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * 添加处理器类
      * <p>
@@ -33,6 +58,10 @@ public class HandlerChain {
      * 处理方法1，所有处理器处理一遍
      */
     public void handleAll() {
+        if (metrics != null) {
+            InstrumentedHandlers.handleAll(handlers, metrics);
+            return;
+        }
         for (IHandler handler : handlers) {
             handler.handleAll();
         }
@@ -42,6 +71,10 @@ public class HandlerChain {
      * 处理方法2，根据返回值判断是否继续执行
      */
     public void handleConditional() {
+        if (metrics != null) {
+            InstrumentedHandlers.handleConditional(handlers, metrics);
+            return;
+        }
         for (IHandler handler : handlers) {
             boolean handled = handler.handleConditional();
             if (handled) {
@@ -49,4 +82,142 @@ public class HandlerChain {
             }
         }
     }
+
+    /**
+     * 批量处理方法1，每个处理器一次处理整个批次
+     *
+     * @param items 待处理元素
+     * @param size  有效元素个数
+     */
+    public void handleAll(Object[] items, int size) {
+        if (metrics != null) {
+            InstrumentedHandlers.handleAll(handlers, metrics, items, size);
+            return;
+        }
+        for (IHandler handler : handlers) {
+            handler.handleAll(items, size);
+        }
+    }
+
+    /**
+     * 批量处理方法2，每个处理器处理当前批次，被处理掉的元素不再交给后续处理器
+     *
+     * @param items 待处理元素，会被原地修改，返回后前 n 个元素为未被任何处理器处理的元素
+     * @param size  有效元素个数
+     * @return 未被任何处理器处理的元素个数 n
+     */
+    public int handleConditional(Object[] items, int size) {
+        if (metrics != null) {
+            return InstrumentedHandlers.handleConditional(handlers, metrics, items, size);
+        }
+        int remaining = size;
+        for (IHandler handler : handlers) {
+            if (remaining == 0) {
+                break;
+            }
+            remaining = handler.handleConditional(items, remaining);
+        }
+        return remaining;
+    }
+
+    /**
+     * 将当前处理器冻结为 {@link CompiledHandlerChain}，用于处理器不再变化后的热路径
+     * <p>
+     * 之后对本链的修改不会影响已编译的链；本链设置了指标时，编译后的链同样记录到该指标
+     *
+     * @return 编译后的处理器链
+     */
+    public CompiledHandlerChain compile() {
+        return new CompiledHandlerChain(handlers.toArray(new IHandler[0]), metrics);
+    }
+
+    /**
+     * 生成处理方法2的自适应版本，会根据统计数据周期性地调整处理器顺序；本链设置了指标时同样记录到该指标
+     *
+     * @param reorderInterval 每处理多少次请求重新排序一次
+     * @return 自适应处理器链
+     */
+    public AdaptiveHandlerChain adaptive(int reorderInterval) {
+        return new AdaptiveHandlerChain(handlers.toArray(new IHandler[0]), reorderInterval, metrics);
+    }
+
+    /**
+     * 处理方法1的并行版本，使用公共 ForkJoinPool
+     */
+    public void handleAllParallel() {
+        handleAllParallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 处理方法1的并行版本，所有处理器处理一遍
+     * <p>
+     * 按 {@link IHandler#isIndependent()}、{@link IHandler#dependsOn()} 构建依赖图，
+     * 没有依赖关系的处理器并发执行，总耗时约为依赖图中最长路径的耗时；全部完成后返回
+     *
+     * @param executor 执行处理器的线程池
+     */
+    public void handleAllParallel(Executor executor) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(handlers.size());
+        // 最近一个非独立处理器，独立处理器不参与顺序链，不能作为后续非独立处理器的前驱
+        CompletableFuture<Void> lastSequential = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < handlers.size(); i++) {
+            IHandler handler = handlers.get(i);
+            CompletableFuture<Void> ready = dependenciesOf(handler, i, futures, lastSequential);
+            Runnable task = metrics == null ? handler::handleAll : () -> timedHandleAll(handler);
+            CompletableFuture<Void> future = ready.thenRunAsync(task, executor);
+            futures.add(future);
+            if (!handler.isIndependent()) {
+                lastSequential = future;
+            }
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 并行模式只统计各处理器的耗时，处理器在不同线程上执行，不记录调用轨迹
+     */
+    private void timedHandleAll(IHandler handler) {
+        long start = System.nanoTime();
+        try {
+            handler.handleAll();
+        } finally {
+            metrics.record(handler, System.nanoTime() - start, false, null);
+        }
+    }
+
+    private CompletableFuture<Void> dependenciesOf(IHandler handler, int index, List<CompletableFuture<Void>> futures,
+                                                   CompletableFuture<Void> lastSequential) {
+        Set<Class<? extends IHandler>> dependencies = handler.dependsOn();
+        if (dependencies.isEmpty()) {
+            return handler.isIndependent() ? CompletableFuture.completedFuture(null) : lastSequential;
+        }
+        List<CompletableFuture<Void>> dependencyFutures = new ArrayList<>();
+        if (!handler.isIndependent()) {
+            // 声明了依赖的非独立处理器仍然排在前一个非独立处理器之后，保持非独立处理器之间的顺序
+            dependencyFutures.add(lastSequential);
+        }
+        for (Class<? extends IHandler> dependency : dependencies) {
+            boolean found = false;
+            for (int i = 0; i < index; i++) {
+                if (dependency.isInstance(handlers.get(i))) {
+                    dependencyFutures.add(futures.get(i));
+                    found = true;
+                }
+            }
+            if (!found) {
+                throw new IllegalStateException(String.format(
+                        "Handler %s depends on %s, which must be added to the chain before it.",
+                        handler.getClass().getName(),
+                        dependency.getName()));
+            }
+        }
+        return CompletableFuture.allOf(dependencyFutures.toArray(new CompletableFuture<?>[0]));
+    }
 }
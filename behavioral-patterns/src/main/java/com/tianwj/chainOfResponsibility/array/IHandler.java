@@ -1,5 +1,8 @@
 package com.tianwj.chainOfResponsibility.array;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * 处理器通用接口
  * <p>
@@ -24,4 +27,71 @@ public interface IHandler {
      * @return 是否继续执行
      */
     boolean handleConditional();
+
+    /**
+     * 处理方法1的批量版本
+     * <p>
+     * 一次处理 items 的前 size 个元素，处理器可以覆盖以实现批量查询等优化；默认逐个调用 {@link #handleAll()}
+     *
+     * @param items 待处理元素
+     * @param size  有效元素个数
+     */
+    default void handleAll(Object[] items, int size) {
+        for (int i = 0; i < size; i++) {
+            handleAll();
+        }
+    }
+
+    /**
+     * 处理方法2的批量版本
+     * <p>
+     * 处理 items 的前 size 个元素，被本处理器处理掉的元素从批次中移除：
+     * 未处理的元素按原顺序压缩到数组前部，返回剩余个数。默认逐个调用 {@link #handleConditional()}
+     *
+     * @param items 待处理元素，会被原地修改
+     * @param size  有效元素个数
+     * @return 未被处理的元素个数
+     */
+    default int handleConditional(Object[] items, int size) {
+        int remaining = 0;
+        for (int i = 0; i < size; i++) {
+            if (!handleConditional()) {
+                items[remaining++] = items[i];
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * 是否与其他处理器相互独立
+     * <p>
+     * 并行模式下，独立且没有声明依赖的处理器可以与其他处理器同时执行；
+     * 非独立的处理器（无论是否声明依赖）在前一个非独立处理器完成后执行，保持非独立处理器之间的原有顺序
+     *
+     * @return 是否独立
+     */
+    default boolean isIndependent() {
+        return false;
+    }
+
+    /**
+     * 依赖的处理器类型，并行模式下在链中排在前面的这些处理器全部完成后才执行；
+     * 非独立的处理器还要等待前一个非独立处理器完成
+     *
+     * @return 依赖的处理器类型
+     */
+    default Set<Class<? extends IHandler>> dependsOn() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * 是否对顺序敏感
+     * <p>
+     * 自适应模式（{@link AdaptiveHandlerChain}）下，顺序敏感的处理器固定在原位置，其余处理器会按命中率和耗时重新排序
+     *
+     * @return 是否顺序敏感
+     */
+    default boolean isOrderSensitive() {
+        return false;
+    }
 }
@@ -0,0 +1,99 @@
+package com.tianwj.chainOfResponsibility.array;
+
+import com.tianwj.chainOfResponsibility.HandlerChainMetrics;
+import com.tianwj.chainOfResponsibility.HandlerTrace;
+
+import java.util.List;
+
+/**
+ * 带指标的处理循环，{@link HandlerChain} 与 {@link CompiledHandlerChain} 设置了指标时共用
+ *
+ * @author tianwj
+ */
+final class InstrumentedHandlers {
+
+    private InstrumentedHandlers() {
+    }
+
+    static void handleAll(List<IHandler> handlers, HandlerChainMetrics metrics) {
+        HandlerTrace trace = metrics.startTrace();
+        try {
+            for (IHandler handler : handlers) {
+                long start = System.nanoTime();
+                try {
+                    handler.handleAll();
+                } finally {
+                    metrics.record(handler, System.nanoTime() - start, false, trace);
+                }
+            }
+        } finally {
+            metrics.finishTrace(trace);
+        }
+    }
+
+    static boolean handleConditional(List<IHandler> handlers, HandlerChainMetrics metrics) {
+        HandlerTrace trace = metrics.startTrace();
+        try {
+            for (IHandler handler : handlers) {
+                long start = System.nanoTime();
+                boolean handled = false;
+                try {
+                    handled = handler.handleConditional();
+                } finally {
+                    metrics.record(handler, System.nanoTime() - start, handled, trace);
+                }
+                if (handled) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            metrics.finishTrace(trace);
+        }
+    }
+
+    /**
+     * 批量版本按批次计时：每个处理器每批记录一次，耗时为处理整批的耗时
+     */
+    static void handleAll(List<IHandler> handlers, HandlerChainMetrics metrics, Object[] items, int size) {
+        HandlerTrace trace = metrics.startTrace();
+        try {
+            for (IHandler handler : handlers) {
+                long start = System.nanoTime();
+                try {
+                    handler.handleAll(items, size);
+                } finally {
+                    metrics.record(handler, System.nanoTime() - start, false, trace);
+                }
+            }
+        } finally {
+            metrics.finishTrace(trace);
+        }
+    }
+
+    /**
+     * 批量版本按批次计时，批次在某个处理器处被处理完时记为该处理器提前终止
+     */
+    static int handleConditional(List<IHandler> handlers, HandlerChainMetrics metrics, Object[] items, int size) {
+        HandlerTrace trace = metrics.startTrace();
+        int remaining = size;
+        try {
+            for (IHandler handler : handlers) {
+                if (remaining == 0) {
+                    break;
+                }
+                long start = System.nanoTime();
+                int before = remaining;
+                remaining = 0;
+                try {
+                    remaining = handler.handleConditional(items, before);
+                } finally {
+                    metrics.record(handler, System.nanoTime() - start, remaining == 0, trace);
+                }
+            }
+        } finally {
+            metrics.finishTrace(trace);
+        }
+        return remaining;
+    }
+}
@@ -0,0 +1,57 @@
+package com.tianwj.chainOfResponsibility.array;
+
+/**
+ * 编译后处理器链中一个位置的调用器模板
+ * <p>
+ * 调用本位置的处理器，再直接调用下一个位置的调用器。{@link CompiledHandlerChain} 为每个位置复制一份本类
+ * （同样的字节码由独立的类加载器重新定义），每份副本里的两个调用点各自只会遇到一种接收者类型，
+ * JIT 可以沿着整条链逐层内联。因为副本与本类不在同一个运行时包，这里只能引用 public 类型
+ *
+ * @author tianwj
+ */
+final class SpecializedStep implements CompiledHandlerChain.Step {
+    private final IHandler handler;
+
+    /**
+     * 下一个位置，最后一个位置为 null
+     */
+    private final CompiledHandlerChain.Step next;
+
+    public SpecializedStep(IHandler handler, CompiledHandlerChain.Step next) {
+        this.handler = handler;
+        this.next = next;
+    }
+
+    @Override
+    public void handleAll() {
+        handler.handleAll();
+        if (next != null) {
+            next.handleAll();
+        }
+    }
+
+    @Override
+    public boolean handleConditional() {
+        if (handler.handleConditional()) {
+            return true;
+        }
+        return next != null && next.handleConditional();
+    }
+
+    @Override
+    public void handleAll(Object[] items, int size) {
+        handler.handleAll(items, size);
+        if (next != null) {
+            next.handleAll(items, size);
+        }
+    }
+
+    @Override
+    public int handleConditional(Object[] items, int size) {
+        int remaining = handler.handleConditional(items, size);
+        if (remaining == 0 || next == null) {
+            return remaining;
+        }
+        return next.handleConditional(items, remaining);
+    }
+}
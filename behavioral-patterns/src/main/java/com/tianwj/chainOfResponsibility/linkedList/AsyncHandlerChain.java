@@ -0,0 +1,56 @@
+package com.tianwj.chainOfResponsibility.linkedList;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 职责链模式，异步处理器链
+ * <p>
+ * 链表实现，处理器之间通过 {@link CompletionStage} 传递控制权，不占用调用线程
+ *
+ * @author tianwj
+ */
+public class AsyncHandlerChain {
+    private IAsyncHandler head = null;
+    private IAsyncHandler tail = null;
+
+    /**
+     * 添加处理器类
+     */
+    public void addHandler(IAsyncHandler handler) {
+        handler.setNextHandler(null);
+
+        if (head == null) {
+            head = handler;
+            tail = handler;
+            return;
+        }
+
+        tail.setNextHandler(handler);
+        tail = handler;
+    }
+
+    public CompletableFuture<Void> handle() {
+        if (head == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return head.handle().toCompletableFuture();
+    }
+
+    /**
+     * 带总时间预算的处理方法，整条链超过预算时返回的 future 以 {@link java.util.concurrent.TimeoutException} 异常完成，
+     * 预算耗尽后尚未开始的处理器不再执行
+     *
+     * @param budget 总时间预算
+     * @param unit   时间单位
+     */
+    public CompletableFuture<Void> handle(long budget, TimeUnit unit) {
+        if (head == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long budgetNanos = unit.toNanos(budget);
+        CompletionStage<Void> chain = head.handle(System.nanoTime() + budgetNanos);
+        return AsyncTimeouts.within(chain, budgetNanos, "handler chain");
+    }
+}
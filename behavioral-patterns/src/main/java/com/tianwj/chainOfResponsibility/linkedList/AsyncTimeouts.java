@@ -0,0 +1,61 @@
+package com.tianwj.chainOfResponsibility.linkedList;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 异步超时工具
+ * <p>
+ * Java 8 的 CompletableFuture 没有 orTimeout，使用共享的守护定时线程实现
+ *
+ * @author tianwj
+ */
+final class AsyncTimeouts {
+
+    private AsyncTimeouts() {
+    }
+
+    /**
+     * 返回一个新的 future：stage 在超时前完成则结果相同，否则以 {@link TimeoutException} 异常完成
+     */
+    static <T> CompletableFuture<T> within(CompletionStage<T> stage, long timeoutNanos, String description) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = TimerHolder.TIMER.schedule(
+                () -> result.completeExceptionally(new TimeoutException(description + " timed out")),
+                timeoutNanos,
+                TimeUnit.NANOSECONDS);
+        stage.whenComplete((value, error) -> {
+            timeout.cancel(false);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 静态内部类延迟初始化定时线程
+     * <p>
+     * 取消的超时任务立即从队列移除，否则每个按时完成的请求都会留下一个任务直到超时时间到达
+     */
+    private static class TimerHolder {
+        private static final ScheduledExecutorService TIMER = createTimer();
+
+        private static ScheduledExecutorService createTimer() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "async-handler-timeout");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+}
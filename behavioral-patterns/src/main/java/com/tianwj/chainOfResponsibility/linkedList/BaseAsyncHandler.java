@@ -0,0 +1,75 @@
+package com.tianwj.chainOfResponsibility.linkedList;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 基础异步处理器
+ * <p>
+ * 是一个可选类，封装了"处理完成后按需交给下一个处理器"的逻辑，以及单个处理器的超时控制：
+ * 超时只计算本处理器自身的处理时间，不包含后续处理器
+ *
+ * @author tianwj
+ */
+public abstract class BaseAsyncHandler implements IAsyncHandler {
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    protected IAsyncHandler handler = null;
+
+    /**
+     * 本处理器超时时间，0表示不超时
+     */
+    private final long timeoutNanos;
+
+    protected BaseAsyncHandler() {
+        this(0, TimeUnit.NANOSECONDS);
+    }
+
+    protected BaseAsyncHandler(long timeout, TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    @Override
+    public void setNextHandler(IAsyncHandler nextHandler) {
+        this.handler = nextHandler;
+    }
+
+    @Override
+    public final CompletionStage<Void> handle() {
+        return process(false, 0);
+    }
+
+    @Override
+    public final CompletionStage<Void> handle(long deadlineNanos) {
+        return process(true, deadlineNanos);
+    }
+
+    private CompletionStage<Void> process(boolean bounded, long deadlineNanos) {
+        if (bounded && System.nanoTime() - deadlineNanos >= 0) {
+            // 预算已耗尽，不再执行本处理器和后续处理器
+            CompletableFuture<Void> expired = new CompletableFuture<>();
+            expired.completeExceptionally(new TimeoutException("budget exhausted before " + getClass().getSimpleName()));
+            return expired;
+        }
+        CompletionStage<Boolean> handled = doHandle();
+        if (timeoutNanos > 0) {
+            handled = AsyncTimeouts.within(handled, timeoutNanos, getClass().getSimpleName());
+        }
+        // 执行下个处理器，可以提前终止不执行
+        return handled.thenCompose(done -> {
+            if (done || handler == null) {
+                return DONE;
+            }
+            return bounded ? handler.handle(deadlineNanos) : handler.handle();
+        });
+    }
+
+    /**
+     * 本处理器自身的处理逻辑，不应阻塞调用线程
+     *
+     * @return 是否已处理完成，true 则终止后续处理器
+     */
+    protected abstract CompletionStage<Boolean> doHandle();
+}
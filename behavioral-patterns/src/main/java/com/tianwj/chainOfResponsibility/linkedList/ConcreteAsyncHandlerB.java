@@ -0,0 +1,21 @@
+package com.tianwj.chainOfResponsibility.linkedList;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 具体异步处理器B
+ * <p>
+ * 链表实现
+ *
+ * @author tianwj
+ */
+public class ConcreteAsyncHandlerB extends BaseAsyncHandler {
+
+    @Override
+    protected CompletionStage<Boolean> doHandle() {
+        // 调用异步后端接口...
+
+        return CompletableFuture.completedFuture(false);
+    }
+}
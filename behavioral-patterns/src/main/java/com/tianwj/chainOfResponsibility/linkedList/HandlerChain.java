@@ -1,5 +1,7 @@
 package com.tianwj.chainOfResponsibility.linkedList;
 
+import com.tianwj.chainOfResponsibility.HandlerChainMetrics;
+
 /**
  * 职责链模式，处理器链
  * <p>
@@ -11,6 +13,24 @@ public class HandlerChain {
     private IHandler head = null;
     private IHandler tail = null;
 
+    /**
+     * 处理器链指标，null表示不统计
+     */
+    private final HandlerChainMetrics metrics;
+
+    public HandlerChain() {
+        this(null);
+    }
+
+    /**
+     * 统计每个处理器的调用次数、提前终止次数和耗时
+     *
+     * @param metrics 处理器链指标
+     */
+    public HandlerChain(HandlerChainMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * 添加处理器类
      * <p>
@@ -23,6 +43,9 @@ public class HandlerChain {
      * handlers.addAll(applicationContext.getBeansOfType(IHandler.class).values());
      */
     public void addHandler(IHandler handler) {
+        if (metrics != null) {
+            handler = new InstrumentedHandler(handler, metrics);
+        }
         handler.setNextHandler(null);
 
         if (head == null) {
@@ -36,8 +59,13 @@ public class HandlerChain {
     }
 
     public void handle() {
-        if (head != null) {
+        if (head == null) {
+            return;
+        }
+        if (metrics == null) {
             head.handle();
+        } else {
+            InstrumentedHandler.handleChain(head, metrics);
         }
     }
 }
@@ -0,0 +1,41 @@
+package com.tianwj.chainOfResponsibility.linkedList;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步处理器通用接口
+ * <p>
+ * 链表实现，处理方法返回 {@link CompletionStage}，调用方线程不会被慢处理器阻塞
+ *
+ * @author tianwj
+ */
+public interface IAsyncHandler {
+
+    /**
+     * 设置下一个处理器
+     *
+     * @param nextHandler 下一个处理器
+     */
+    void setNextHandler(IAsyncHandler nextHandler);
+
+    /**
+     * 处理方法
+     * <p>
+     * 可以所有处理器都处理一遍，也可以提前终止，具体控制逻辑方法实现中处理
+     *
+     * @return 本处理器及其后续处理器全部完成时完成
+     */
+    CompletionStage<Void> handle();
+
+    /**
+     * 带截止时间的处理方法
+     * <p>
+     * 截止时间已过时不再执行本处理器，并且不再把请求交给后续处理器；默认实现忽略截止时间
+     *
+     * @param deadlineNanos 截止时间，与 {@link System#nanoTime()} 同一时间基准
+     * @return 本处理器及其后续处理器全部完成时完成
+     */
+    default CompletionStage<Void> handle(long deadlineNanos) {
+        return handle();
+    }
+}
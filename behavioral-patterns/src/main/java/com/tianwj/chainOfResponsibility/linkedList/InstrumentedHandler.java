@@ -0,0 +1,78 @@
+package com.tianwj.chainOfResponsibility.linkedList;
+
+import com.tianwj.chainOfResponsibility.HandlerChainMetrics;
+import com.tianwj.chainOfResponsibility.HandlerTrace;
+
+/**
+ * 计时装饰处理器
+ * <p>
+ * 链表实现中处理器自己调用下一个处理器，因此用装饰器包住每个处理器：
+ * 通过线程内的调用状态扣除后续处理器的耗时得到处理器自身耗时，并根据是否调用了下一个处理器判断是否提前终止
+ *
+ * @author tianwj
+ */
+class InstrumentedHandler implements IHandler {
+    private static final ThreadLocal<Invocation> INVOCATION = ThreadLocal.withInitial(Invocation::new);
+
+    private final IHandler delegate;
+    private final HandlerChainMetrics metrics;
+    private IHandler nextHandler;
+
+    InstrumentedHandler(IHandler delegate, HandlerChainMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void setNextHandler(IHandler nextHandler) {
+        this.nextHandler = nextHandler;
+        delegate.setNextHandler(nextHandler);
+    }
+
+    @Override
+    public void handle() {
+        Invocation invocation = INVOCATION.get();
+        // 被调用说明上一个处理器把请求交给了本处理器
+        invocation.nextCalled = true;
+        long outerChildNanos = invocation.childNanos;
+        invocation.childNanos = 0;
+        invocation.nextCalled = false;
+        long start = System.nanoTime();
+        try {
+            delegate.handle();
+        } finally {
+            long inclusive = System.nanoTime() - start;
+            boolean shortCircuit = nextHandler != null && !invocation.nextCalled;
+            long exclusive = inclusive - invocation.childNanos;
+            metrics.record(delegate, exclusive, shortCircuit, invocation.trace);
+            invocation.childNanos = outerChildNanos + inclusive;
+            invocation.nextCalled = true;
+        }
+    }
+
+    /**
+     * 链入口：开启采样轨迹后调用第一个处理器
+     */
+    static void handleChain(IHandler head, HandlerChainMetrics metrics) {
+        Invocation invocation = INVOCATION.get();
+        HandlerTrace outerTrace = invocation.trace;
+        invocation.trace = metrics.startTrace();
+        try {
+            head.handle();
+        } finally {
+            HandlerTrace trace = invocation.trace;
+            invocation.trace = outerTrace;
+            invocation.childNanos = 0;
+            metrics.finishTrace(trace);
+        }
+    }
+
+    /**
+     * 线程内的调用状态，处理器同步嵌套调用，同一线程内复用
+     */
+    private static class Invocation {
+        private long childNanos;
+        private boolean nextCalled;
+        private HandlerTrace trace;
+    }
+}
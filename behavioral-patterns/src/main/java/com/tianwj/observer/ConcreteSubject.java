@@ -1,48 +1,45 @@
 package com.tianwj.observer;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.tianwj.observer.typed.ConcreteTypedSubject;
+
+import java.util.concurrent.Executor;
 
 /**
  * 被观察者实现
+ * <p>
+ * 字符串消息版本，委托给泛型的{@link ConcreteTypedSubject}，
+ * 新代码优先直接使用泛型或数值类型的被观察者，避免消息与字符串之间的转换
  *
  * @author tianwj
  */
 public class ConcreteSubject implements Subject {
-    private final List<Observer> observerList = new ArrayList<>();
+    private final ConcreteTypedSubject<String> delegate;
+
+    public ConcreteSubject() {
+        this.delegate = new ConcreteTypedSubject<>();
+    }
 
-    private final Object MUTEX = new Object();
+    /**
+     * 异步通知，每个观察者的update作为独立任务提交到executor
+     *
+     * @param executor 通知执行器
+     */
+    public ConcreteSubject(Executor executor) {
+        this.delegate = new ConcreteTypedSubject<>(executor);
+    }
 
     @Override
     public void registerObserver(Observer observer) {
-        if (observer == null) {
-            throw new NullPointerException("registerObserver observer is null");
-        }
-        synchronized (MUTEX) {
-            if (!observerList.contains(observer)) {
-                observerList.add(observer);
-            }
-        }
+        delegate.registerObserver(observer);
     }
 
     @Override
     public void removeObserver(Observer observer) {
-        if (observer == null) {
-            throw new NullPointerException("removeObserver observer is null");
-        }
-        synchronized (MUTEX) {
-            observerList.remove(observer);
-        }
+        delegate.removeObserver(observer);
     }
 
     @Override
     public void notifyObserver(String message) {
-        List<Observer> observerLocal;
-        synchronized (MUTEX) {
-            observerLocal = new ArrayList<>(this.observerList);
-        }
-        for (Observer observer : observerLocal) {
-            observer.update(message);
-        }
+        delegate.notifyObserver(message);
     }
 }
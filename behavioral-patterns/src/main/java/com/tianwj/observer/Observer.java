@@ -1,12 +1,15 @@
 package com.tianwj.observer;
 
+import com.tianwj.observer.typed.TypedObserver;
+
 /**
  * 观察者接口
  * <p>
- * 与Subscriber、Consumer...等价
+ * 与Subscriber、Consumer...等价，即事件类型为String的{@link TypedObserver}
  *
  * @author tianwj
  */
-public interface Observer {
+public interface Observer extends TypedObserver<String> {
+    @Override
     void update(String message);
 }
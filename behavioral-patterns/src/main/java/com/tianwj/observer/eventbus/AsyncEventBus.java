@@ -1,14 +1,226 @@
 package com.tianwj.observer.eventbus;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 /**
  * 异步非阻塞观察者模式
+ * <p>
+ * 默认每个订阅者每个事件提交一个执行器任务；信箱模式下每个订阅者拥有一个有界信箱，由单个任务批量消费；
+ * 限流模式下每个订阅者最多同时执行指定数量的事件，适合配合虚拟线程运行阻塞的订阅者；
+ * 优先级模式下按订阅者优先级分通道加权调度，并丢弃超过截止时间的事件
  *
  * @author tianwj
  */
 public class AsyncEventBus extends EventBus {
+    /**
+     * 是否使用信箱模式
+     */
+    private final boolean mailboxEnabled;
+    private final int mailboxCapacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final ConcurrentMap<Subscriber, SubscriberMailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * 每个订阅者最大并发数，0表示不限制
+     */
+    private final int maxConcurrencyPerSubscriber;
+    private final ConcurrentMap<Subscriber, Semaphore> permits = new ConcurrentHashMap<>();
+
+    /**
+     * 限流模式下并发已满时是否阻塞发布线程，否则在投递任务内等待许可
+     */
+    private final boolean blockPublisher;
+
+    /**
+     * 优先级通道调度器，null表示不使用优先级模式
+     */
+    private final PriorityLaneScheduler priorityScheduler;
+
     public AsyncEventBus(Executor executor) {
+        this(executor, 0);
+    }
+
+    /**
+     * 限流模式
+     * <p>
+     * 订阅者并发已满时，发布线程阻塞等待，从而对发布方形成背压
+     *
+     * @param executor                    执行器
+     * @param maxConcurrencyPerSubscriber 每个订阅者最大并发数，0表示不限制
+     */
+    public AsyncEventBus(Executor executor, int maxConcurrencyPerSubscriber) {
+        this(executor, maxConcurrencyPerSubscriber, true);
+    }
+
+    /**
+     * 限流模式
+     *
+     * @param executor                    执行器
+     * @param maxConcurrencyPerSubscriber 每个订阅者最大并发数，0表示不限制
+     * @param blockPublisher              并发已满时是否阻塞发布线程；false 时每个事件立即提交投递任务，
+     *                                    由投递任务等待许可，适合虚拟线程这类可以廉价阻塞的执行器
+     */
+    public AsyncEventBus(Executor executor, int maxConcurrencyPerSubscriber, boolean blockPublisher) {
+        super(executor);
+        if (maxConcurrencyPerSubscriber < 0) {
+            throw new IllegalArgumentException("maxConcurrencyPerSubscriber must not be negative");
+        }
+        this.mailboxEnabled = false;
+        this.mailboxCapacity = 0;
+        this.batchSize = 0;
+        this.overflowPolicy = null;
+        this.maxConcurrencyPerSubscriber = maxConcurrencyPerSubscriber;
+        this.blockPublisher = blockPublisher;
+        this.priorityScheduler = null;
+    }
+
+    /**
+     * 信箱模式
+     *
+     * @param executor        执行器
+     * @param mailboxCapacity 每个订阅者信箱容量
+     * @param batchSize       每个任务最多连续消费的事件数
+     * @param overflowPolicy  信箱已满时的处理策略
+     */
+    public AsyncEventBus(Executor executor, int mailboxCapacity, int batchSize, OverflowPolicy overflowPolicy) {
         super(executor);
+        if (mailboxCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("mailboxCapacity and batchSize must be positive");
+        }
+        if (overflowPolicy == null) {
+            throw new NullPointerException("overflowPolicy is null");
+        }
+        this.mailboxEnabled = true;
+        this.mailboxCapacity = mailboxCapacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.maxConcurrencyPerSubscriber = 0;
+        this.blockPublisher = false;
+        this.priorityScheduler = null;
+    }
+
+    /**
+     * 优先级模式
+     * <p>
+     * 合并与批量订阅方法由各自的信箱直接在调度器的执行器上消费，不占用通道，也不能设置优先级和截止时间
+     *
+     * @param priorityScheduler 优先级通道调度器
+     */
+    public AsyncEventBus(PriorityLaneScheduler priorityScheduler) {
+        super(priorityScheduler.getExecutor());
+        this.mailboxEnabled = false;
+        this.mailboxCapacity = 0;
+        this.batchSize = 0;
+        this.overflowPolicy = null;
+        this.maxConcurrencyPerSubscriber = 0;
+        this.blockPublisher = false;
+        this.priorityScheduler = priorityScheduler;
+    }
+
+    /**
+     * 每次投递使用一个虚拟线程（JDK 21 以下回退为平台线程），并限制每个订阅者的并发数
+     * <p>
+     * 发布线程不等待许可，超出并发的投递在各自的虚拟线程中排队
+     *
+     * @param maxConcurrencyPerSubscriber 每个订阅者最大并发数
+     */
+    public static AsyncEventBus withVirtualThreads(int maxConcurrencyPerSubscriber) {
+        if (maxConcurrencyPerSubscriber <= 0) {
+            throw new IllegalArgumentException("maxConcurrencyPerSubscriber must be positive");
+        }
+        return new AsyncEventBus(VirtualThreadExecutors.newVirtualThreadPerTaskExecutor(), maxConcurrencyPerSubscriber, false);
+    }
+
+    @Override
+    protected void onUnregistered(Subscriber subscriber) {
+        super.onUnregistered(subscriber);
+        // 已在信箱中的事件由正在执行的消费任务继续处理
+        mailboxes.remove(subscriber);
+        permits.remove(subscriber);
+    }
+
+    @Override
+    protected void dispatch(Subscriber subscriber, Object event) {
+        if (priorityScheduler != null) {
+            priorityScheduler.submit(subscriber, event);
+            return;
+        }
+        if (maxConcurrencyPerSubscriber > 0) {
+            dispatchLimited(subscriber, event);
+            return;
+        }
+        if (!mailboxEnabled) {
+            super.dispatch(subscriber, event);
+            return;
+        }
+        SubscriberMailbox mailbox = mailboxes.get(subscriber);
+        if (mailbox == null) {
+            mailbox = mailboxes.computeIfAbsent(subscriber,
+                    k -> new SubscriberMailbox(k, getExecutor(), mailboxCapacity, batchSize, overflowPolicy));
+        }
+        mailbox.offer(event);
+    }
+
+    private void dispatchLimited(Subscriber subscriber, Object event) {
+        Semaphore semaphore = permits.get(subscriber);
+        if (semaphore == null) {
+            semaphore = permits.computeIfAbsent(subscriber, k -> new Semaphore(maxConcurrencyPerSubscriber));
+        }
+        if (!blockPublisher) {
+            dispatchWaiting(subscriber, event, semaphore);
+            return;
+        }
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            EventEnvelope.rejected(subscriber, event);
+            throw new RejectedExecutionException("interrupted while waiting for subscriber permit", e);
+        }
+        Semaphore acquired = semaphore;
+        try {
+            getExecutor().execute(() -> {
+                try {
+                    subscriber.execute(event);
+                } finally {
+                    acquired.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            acquired.release();
+            EventEnvelope.rejected(subscriber, event);
+            throw e;
+        }
+    }
+
+    /**
+     * 投递任务内等待许可，发布线程不阻塞
+     */
+    private void dispatchWaiting(Subscriber subscriber, Object event, Semaphore semaphore) {
+        try {
+            getExecutor().execute(() -> {
+                try {
+                    semaphore.acquire();
+                } catch (InterruptedException e) {
+                    // 执行器关闭时中断等待中的投递
+                    Thread.currentThread().interrupt();
+                    EventEnvelope.rejected(subscriber, event);
+                    return;
+                }
+                try {
+                    subscriber.execute(event);
+                } finally {
+                    semaphore.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            EventEnvelope.rejected(subscriber, event);
+            throw e;
+        }
     }
 }
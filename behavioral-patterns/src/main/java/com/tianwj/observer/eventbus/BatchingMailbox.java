@@ -0,0 +1,185 @@
+package com.tianwj.observer.eventbus;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 批量信箱
+ * <p>
+ * 为批量订阅方法积攒事件，攒够 batchSize 或第一个事件等待超过 maxLingerMillis 时整批投递。
+ * 攒好的批次进入就绪队列，与 {@link SubscriberMailbox} 一样同一时刻最多只有一个消费任务，保证批次按顺序执行。
+ * 超时定时器只负责把批次移入就绪队列并提交消费任务，不在定时器线程上执行订阅方法
+ *
+ * @author tianwj
+ */
+class BatchingMailbox {
+    private final Subscriber subscriber;
+    private final Executor executor;
+
+    /**
+     * 超时触发时提交消费任务的执行器，总线使用直接执行器时改用共享的后台线程池
+     */
+    private final Executor lingerExecutor;
+    private final int batchSize;
+    private final long maxLingerMillis;
+
+    private List<Object> buffer;
+    private ScheduledFuture<?> lingerFuture;
+
+    /**
+     * 已攒好、等待消费的批次，与 buffer 一起由 this 保护
+     */
+    private final Queue<Object> ready = new ArrayDeque<>();
+
+    /**
+     * 是否已有消费任务提交到执行器
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Runnable drainTask = this::drain;
+
+    /**
+     * 开启指标或日志时，当前缓冲区中最早事件的发布时间及各事件的包装
+     */
+    private long firstEnqueuedNanos;
+    private List<EventEnvelope> members;
+
+    BatchingMailbox(Subscriber subscriber, Executor executor) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.lingerExecutor = executor == MoreExecutors.directExecutor() ? LingerTimerHolder.DELIVERY : executor;
+        this.batchSize = subscriber.getBatchSize();
+        this.maxLingerMillis = subscriber.getMaxLingerMillis();
+        this.buffer = new ArrayList<>(batchSize);
+    }
+
+    void offer(Object event) {
+        boolean full = false;
+        synchronized (this) {
+            if (event instanceof EventEnvelope) {
+                EventEnvelope envelope = (EventEnvelope) event;
+                if (members == null) {
+                    firstEnqueuedNanos = envelope.enqueuedNanos;
+                    members = new ArrayList<>(batchSize);
+                }
+                members.add(envelope);
+                event = envelope.event;
+            }
+            buffer.add(event);
+            if (buffer.size() >= batchSize) {
+                ready.add(drainBuffer());
+                full = true;
+            } else if (lingerFuture == null) {
+                lingerFuture = LingerTimerHolder.TIMER.schedule(this::lingerExpired, maxLingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full) {
+            schedule(executor);
+        }
+    }
+
+    /**
+     * 投递缓冲区中已有的事件
+     */
+    void flush() {
+        if (moveBufferToReady()) {
+            schedule(executor);
+        }
+    }
+
+    /**
+     * 定时器线程回调，只移交批次，订阅方法在 lingerExecutor 上执行
+     */
+    private void lingerExpired() {
+        if (moveBufferToReady()) {
+            schedule(lingerExecutor);
+        }
+    }
+
+    private synchronized boolean moveBufferToReady() {
+        if (buffer.isEmpty()) {
+            return false;
+        }
+        ready.add(drainBuffer());
+        return true;
+    }
+
+    /**
+     * 取出当前缓冲区，开启指标或日志时包装为批量 {@link EventEnvelope}，执行完成后逐个结束各事件的包装
+     */
+    private Object drainBuffer() {
+        List<Object> events = Collections.unmodifiableList(buffer);
+        Object batch = members == null
+                ? events
+                : new EventEnvelope(events, firstEnqueuedNanos, members.toArray(new EventEnvelope[0]));
+        buffer = new ArrayList<>(batchSize);
+        members = null;
+        if (lingerFuture != null) {
+            lingerFuture.cancel(false);
+            lingerFuture = null;
+        }
+        return batch;
+    }
+
+    private void drain() {
+        try {
+            Object batch;
+            while ((batch = poll()) != null) {
+                subscriber.execute(batch);
+            }
+        } finally {
+            scheduled.set(false);
+            // 释放标记后重新检查，避免与发布线程的竞争丢失批次
+            boolean hasReady;
+            synchronized (this) {
+                hasReady = !ready.isEmpty();
+            }
+            if (hasReady) {
+                schedule(executor);
+            }
+        }
+    }
+
+    private synchronized Object poll() {
+        return ready.poll();
+    }
+
+    private void schedule(Executor target) {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                target.execute(drainTask);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 所有批量信箱共享的超时定时器及直接执行器下的超时投递线程池，静态内部类延迟初始化
+     */
+    private static class LingerTimerHolder {
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-bus-batch-linger");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private static final ExecutorService DELIVERY = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "event-bus-batch-delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
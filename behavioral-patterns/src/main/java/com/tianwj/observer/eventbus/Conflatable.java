@@ -0,0 +1,19 @@
+package com.tianwj.observer.eventbus;
+
+/**
+ * 可合并事件
+ * <p>
+ * 投递给 {@code @Subscribe(conflate = true)} 的订阅者时，同一个合并键尚未消费的事件会被最新事件原地替换；
+ * 未实现该接口的事件以事件类型作为合并键
+ *
+ * @author tianwj
+ */
+public interface Conflatable {
+
+    /**
+     * 合并键，如行情代码、实体ID
+     *
+     * @return 合并键
+     */
+    Object conflationKey();
+}
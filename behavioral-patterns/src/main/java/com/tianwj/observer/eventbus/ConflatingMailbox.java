@@ -0,0 +1,83 @@
+package com.tianwj.observer.eventbus;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 合并信箱
+ * <p>
+ * 按合并键保存每个键最新的未消费事件，慢订阅者直接追上最新状态，而不是逐个处理积压的中间事件
+ *
+ * @author tianwj
+ */
+class ConflatingMailbox implements Runnable {
+    private final Subscriber subscriber;
+    private final Executor executor;
+
+    /**
+     * 合并键 -> 最新事件，替换已有键时保持原有位置
+     */
+    private final Map<Object, Object> pending = new LinkedHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    ConflatingMailbox(Subscriber subscriber, Executor executor) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+    }
+
+    void offer(Object event) {
+        Object raw = EventEnvelope.unwrap(event);
+        Object key = raw instanceof Conflatable ? ((Conflatable) raw).conflationKey() : raw.getClass();
+        Object replaced;
+        synchronized (pending) {
+            replaced = pending.put(key, event);
+        }
+        EventEnvelope.dropped(subscriber, replaced);
+        schedule();
+    }
+
+    @Override
+    public void run() {
+        try {
+            Object event;
+            while ((event = poll()) != null) {
+                subscriber.execute(event);
+            }
+        } finally {
+            scheduled.set(false);
+            boolean hasPending;
+            synchronized (pending) {
+                hasPending = !pending.isEmpty();
+            }
+            if (hasPending) {
+                schedule();
+            }
+        }
+    }
+
+    private Object poll() {
+        synchronized (pending) {
+            Iterator<Object> iterator = pending.values().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            Object event = iterator.next();
+            iterator.remove();
+            return event;
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.tianwj.observer.eventbus;
+
+/**
+ * 单个订阅者的投递窗口
+ * <p>
+ * 按交付顺序记录已交给订阅者、尚未结束的事件包装，包装结束后按顺序回收复用，窗口只在积压超过容量时扩容。
+ * 开启日志时交付顺序即日志顺序，窗口头部连续结束的事件才推进已提交位置，
+ * 因此乱序完成（合并、并发执行）不会越过仍在处理中的事件；出现失败后不再推进，重启后从失败的事件开始重放
+ *
+ * @author tianwj
+ */
+final class DeliveryWindow {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private EventEnvelope[] slots = new EventEnvelope[INITIAL_CAPACITY];
+    private long head;
+    private long tail;
+
+    /**
+     * 头部连续结束的最后一个事件之后的日志位置
+     */
+    private long committedOffset;
+
+    /**
+     * 是否有事件处理失败，失败后已提交位置不再前进
+     */
+    private boolean failed;
+
+    /**
+     * @param committedOffset 初始的已提交位置
+     */
+    DeliveryWindow(long committedOffset) {
+        this.committedOffset = committedOffset;
+    }
+
+    /**
+     * 取一个包装交付事件
+     */
+    synchronized EventEnvelope acquire(Object event, long enqueuedNanos, EventBusMetricsListener listener, long journalOffset) {
+        if (tail - head == slots.length) {
+            grow();
+        }
+        int index = (int) tail & (slots.length - 1);
+        EventEnvelope envelope = slots[index];
+        if (envelope == null) {
+            envelope = new EventEnvelope(this);
+            slots[index] = envelope;
+        }
+        envelope.event = event;
+        envelope.enqueuedNanos = enqueuedNanos;
+        envelope.eventCount = 1;
+        envelope.listener = listener;
+        envelope.journalOffset = journalOffset;
+        envelope.state = EventEnvelope.IN_FLIGHT;
+        tail++;
+        return envelope;
+    }
+
+    /**
+     * 查找已取出、尚未结束的指定日志位置的包装，从尾部向前查找
+     *
+     * @return 包装，不存在时返回 null
+     */
+    synchronized EventEnvelope find(long journalOffset) {
+        for (long i = tail - 1; i >= head; i--) {
+            EventEnvelope envelope = slots[(int) i & (slots.length - 1)];
+            if (envelope.journalOffset == journalOffset && envelope.state == EventEnvelope.IN_FLIGHT) {
+                return envelope;
+            }
+        }
+        return null;
+    }
+
+    synchronized void complete(EventEnvelope envelope, boolean success) {
+        envelope.state = success ? EventEnvelope.DONE : EventEnvelope.FAILED;
+        envelope.event = null;
+        envelope.listener = null;
+        while (head < tail) {
+            EventEnvelope first = slots[(int) head & (slots.length - 1)];
+            if (first.state == EventEnvelope.IN_FLIGHT) {
+                break;
+            }
+            if (first.state == EventEnvelope.FAILED) {
+                failed = true;
+            } else if (!failed && first.journalOffset > committedOffset) {
+                committedOffset = first.journalOffset;
+            }
+            head++;
+        }
+    }
+
+    /**
+     * 日志可以提交的位置：没有处理中的事件时为日志末尾，否则为头部连续结束的位置，失败后停在失败事件之前
+     * <p>
+     * 调用方持有日志锁，此时所有已追加的事件都已进入窗口
+     *
+     * @param journalEnd 日志当前末尾
+     */
+    synchronized long position(long journalEnd) {
+        return !failed && head == tail ? journalEnd : committedOffset;
+    }
+
+    private void grow() {
+        EventEnvelope[] grown = new EventEnvelope[slots.length << 1];
+        for (long i = head; i < tail; i++) {
+            grown[(int) (i - head)] = slots[(int) i & (slots.length - 1)];
+        }
+        tail -= head;
+        head = 0;
+        slots = grown;
+    }
+}
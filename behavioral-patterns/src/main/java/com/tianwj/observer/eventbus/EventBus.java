@@ -2,6 +2,8 @@ package com.tianwj.observer.eventbus;
 
 import com.google.common.util.concurrent.MoreExecutors;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 
 /**
@@ -11,7 +13,29 @@ import java.util.concurrent.Executor;
  */
 public class EventBus {
     private final Executor executor;
+
+    /**
+     * 是否为直接执行器，直接执行器在发布线程内调用订阅者，不为每次投递创建任务
+     */
+    private final boolean direct;
     private final SubscriberRegistry registry = new SubscriberRegistry();
+    private final ConcurrentMap<Subscriber, ConflatingMailbox> conflatingMailboxes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Subscriber, BatchingMailbox> batchingMailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * 开启指标或日志时每个订阅者的投递窗口，事件包装从窗口中循环取用
+     */
+    private final ConcurrentMap<Subscriber, DeliveryWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 指标监听器，null表示关闭指标
+     */
+    private volatile EventBusMetricsListener metricsListener;
+
+    /**
+     * 事件日志，null表示关闭日志
+     */
+    private volatile EventJournal journal;
 
     public EventBus() {
         this(MoreExecutors.directExecutor());
@@ -19,16 +43,227 @@ public class EventBus {
 
     public EventBus(Executor executor) {
         this.executor = executor;
+        this.direct = executor == MoreExecutors.directExecutor();
     }
 
     public void register(Object object) {
         registry.register(object);
     }
 
+    public void unregister(Object object) {
+        for (Subscriber subscriber : registry.unregister(object)) {
+            onUnregistered(subscriber);
+        }
+    }
+
+    /**
+     * 订阅者取消注册后释放其投递状态，子类可以覆盖以释放自己的状态
+     *
+     * @param subscriber 已取消注册的订阅者
+     */
+    protected void onUnregistered(Subscriber subscriber) {
+        conflatingMailboxes.remove(subscriber);
+        DeliveryWindow window = windows.remove(subscriber);
+        EventJournal eventJournal = journal;
+        if (window != null && eventJournal != null) {
+            eventJournal.closeWindow(subscriber.getId(), window);
+        }
+        BatchingMailbox batchingMailbox = batchingMailboxes.remove(subscriber);
+        if (batchingMailbox != null) {
+            // 取消注册前投递已积攒的事件
+            batchingMailbox.flush();
+        }
+        EventBusMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.onUnregistered(subscriber);
+        }
+    }
+
     public void post(Object event) {
         List<Subscriber> subscribers = registry.getMatchedSubscribers(event);
-        for (Subscriber subscriber : subscribers) {
+        EventBusMetricsListener listener = metricsListener;
+        EventJournal eventJournal = journal;
+        int size = subscribers.size();
+        if (listener == null && eventJournal == null) {
+            for (int i = 0; i < size; i++) {
+                Subscriber subscriber = subscribers.get(i);
+                if (!subscriber.isUnregistered()) {
+                    deliver(subscriber, event);
+                }
+            }
+            return;
+        }
+        long enqueuedNanos = listener == null ? 0 : System.nanoTime();
+        if (eventJournal == null) {
+            for (int i = 0; i < size; i++) {
+                Subscriber subscriber = subscribers.get(i);
+                if (subscriber.isUnregistered()) {
+                    continue;
+                }
+                listener.onEnqueued(subscriber);
+                deliver(subscriber, window(subscriber, null).acquire(event, enqueuedNanos, listener, 0));
+            }
+            return;
+        }
+        long journalOffset;
+        // 追加与占用窗口在同一把锁内完成，每个窗口内的事件按日志位置排列；
+        // 新订阅者的窗口在追加之前打开，起始位置在本事件之前，本事件未处理完不会被提交
+        synchronized (eventJournal) {
+            for (int i = 0; i < size; i++) {
+                Subscriber subscriber = subscribers.get(i);
+                if (!subscriber.isUnregistered()) {
+                    window(subscriber, eventJournal);
+                }
+            }
+            journalOffset = eventJournal.append(event);
+            for (int i = 0; i < size; i++) {
+                DeliveryWindow window = windows.get(subscribers.get(i));
+                if (window != null) {
+                    window.acquire(event, enqueuedNanos, listener, journalOffset);
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            Subscriber subscriber = subscribers.get(i);
+            DeliveryWindow window = windows.get(subscriber);
+            EventEnvelope envelope = window == null ? null : window.find(journalOffset);
+            if (envelope == null) {
+                // 期间已取消注册
+                continue;
+            }
+            if (listener != null) {
+                listener.onEnqueued(subscriber);
+            }
+            deliver(subscriber, envelope);
+        }
+    }
+
+    private DeliveryWindow window(Subscriber subscriber, EventJournal eventJournal) {
+        DeliveryWindow window = windows.get(subscriber);
+        if (window == null) {
+            window = windows.computeIfAbsent(subscriber,
+                    k -> eventJournal == null ? new DeliveryWindow(0) : eventJournal.openWindow(k.getId()));
+        }
+        return window;
+    }
+
+    /**
+     * 开启事件日志，之后 post 的事件会先追加到日志
+     * <p>
+     * 应在启动时、发布事件之前设置，切换日志时丢弃已有的投递窗口
+     *
+     * @param journal 事件日志，传 null 关闭日志
+     */
+    public void setJournal(EventJournal journal) {
+        this.journal = journal;
+        windows.clear();
+    }
+
+    /**
+     * 重放日志中订阅者尚未处理完的事件
+     * <p>
+     * 应在启动时注册完所有订阅者之后、发布新事件之前调用；重放完成前日志保留加载的提交位置，不删除段。
+     * 重放时没有注册的订阅者ID不会收到重放的事件，其提交位置在下一次 {@link EventJournal#sync()} 时移除
+     */
+    public void replayJournal() {
+        EventJournal eventJournal = journal;
+        if (eventJournal == null) {
+            throw new IllegalStateException("journal is not enabled");
+        }
+        EventBusMetricsListener listener = metricsListener;
+        eventJournal.replay((event, nextOffset) -> {
+            List<Subscriber> subscribers = registry.getMatchedSubscribers(event);
+            for (int i = 0, size = subscribers.size(); i < size; i++) {
+                Subscriber subscriber = subscribers.get(i);
+                if (subscriber.isUnregistered() || eventJournal.committedOffset(subscriber.getId()) >= nextOffset) {
+                    continue;
+                }
+                if (listener != null) {
+                    listener.onEnqueued(subscriber);
+                }
+                long enqueuedNanos = listener == null ? 0 : System.nanoTime();
+                deliver(subscriber, window(subscriber, eventJournal).acquire(event, enqueuedNanos, listener, nextOffset));
+            }
+        });
+    }
+
+    /**
+     * 按订阅者类型投递：合并订阅者进入合并信箱，批量订阅者进入批量信箱，其余调用 {@link #dispatch(Subscriber, Object)}
+     * <p>
+     * 自行调度事件的子类应通过本方法投递，而不是直接调用 dispatch
+     *
+     * @param subscriber 订阅者
+     * @param payload    事件，开启指标或日志时为包装后的事件
+     */
+    protected void deliver(Subscriber subscriber, Object payload) {
+        if (subscriber.isConflated()) {
+            conflate(subscriber, payload);
+        } else if (subscriber.isBatched()) {
+            batch(subscriber, payload);
+        } else {
+            dispatch(subscriber, payload);
+        }
+    }
+
+    /**
+     * 设置指标监听器，传 null 关闭指标
+     *
+     * @param metricsListener 指标监听器
+     */
+    public void setMetricsListener(EventBusMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public EventBusMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * 将事件投递给单个订阅者，子类可以覆盖以实现不同的投递方式
+     *
+     * @param subscriber 订阅者
+     * @param event      事件，开启指标或日志时为包装后的事件，由 {@link Subscriber#execute(Object)} 拆包
+     */
+    protected void dispatch(Subscriber subscriber, Object event) {
+        if (direct) {
+            subscriber.execute(event);
+            return;
+        }
+        try {
             executor.execute(() -> subscriber.execute(event));
+        } catch (RuntimeException e) {
+            EventEnvelope.rejected(subscriber, event);
+            throw e;
+        }
+    }
+
+    /**
+     * 合并投递，事件先进入订阅者的合并信箱，再由执行器消费
+     */
+    private void conflate(Subscriber subscriber, Object event) {
+        ConflatingMailbox mailbox = conflatingMailboxes.get(subscriber);
+        if (mailbox == null) {
+            mailbox = conflatingMailboxes.computeIfAbsent(subscriber, k -> new ConflatingMailbox(k, executor));
         }
+        mailbox.offer(event);
+    }
+
+    /**
+     * 批量投递，事件先进入订阅者的批量信箱，按数量或时间整批投递
+     */
+    private void batch(Subscriber subscriber, Object event) {
+        BatchingMailbox mailbox = batchingMailboxes.get(subscriber);
+        if (mailbox == null) {
+            mailbox = batchingMailboxes.computeIfAbsent(subscriber, k -> new BatchingMailbox(k, executor));
+        }
+        mailbox.offer(event);
+    }
+
+    protected Executor getExecutor() {
+        return executor;
+    }
+
+    protected SubscriberRegistry getRegistry() {
+        return registry;
     }
 }
@@ -0,0 +1,55 @@
+package com.tianwj.observer.eventbus;
+
+/**
+ * 事件总线指标监听器
+ * <p>
+ * 通过 {@link EventBus#setMetricsListener(EventBusMetricsListener)} 设置，未设置时投递路径不计时、不分配额外对象。
+ * 回调在发布线程或订阅者执行线程中同步调用，实现需要线程安全且足够轻量
+ *
+ * @author tianwj
+ */
+public interface EventBusMetricsListener {
+
+    /**
+     * 事件已交给订阅者（进入执行器或信箱）
+     *
+     * @param subscriber 订阅者
+     */
+    default void onEnqueued(Subscriber subscriber) {
+    }
+
+    /**
+     * 事件在执行前被丢弃，如信箱溢出或被合并
+     *
+     * @param subscriber 订阅者
+     */
+    default void onDropped(Subscriber subscriber) {
+    }
+
+    /**
+     * 事件未能交给订阅者，如执行器拒绝、信箱已满或等待时被中断，之前已回调过 {@link #onEnqueued(Subscriber)}，之后不会执行
+     *
+     * @param subscriber 订阅者
+     */
+    default void onRejected(Subscriber subscriber) {
+    }
+
+    /**
+     * 订阅方法执行完成
+     *
+     * @param subscriber   订阅者
+     * @param eventCount   本次执行处理的事件数，批量订阅方法大于1
+     * @param queueNanos   从发布到开始执行的耗时，批量时为最早事件的等待时间
+     * @param executeNanos 订阅方法执行耗时
+     * @param error        订阅方法抛出的异常，正常执行为 null
+     */
+    void onExecuted(Subscriber subscriber, int eventCount, long queueNanos, long executeNanos, Throwable error);
+
+    /**
+     * 订阅者已取消注册，监听器可以释放该订阅者的指标；之后信箱中剩余事件的回调仍可能到达
+     *
+     * @param subscriber 订阅者
+     */
+    default void onUnregistered(Subscriber subscriber) {
+    }
+}
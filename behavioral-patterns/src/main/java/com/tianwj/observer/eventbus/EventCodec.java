@@ -0,0 +1,31 @@
+package com.tianwj.observer.eventbus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 事件编解码器
+ * <p>
+ * 直接读写调用方提供的缓冲区（如内存映射文件），编码时不应分配中间字节数组
+ *
+ * @author tianwj
+ */
+public interface EventCodec {
+
+    /**
+     * 将事件写入缓冲区当前位置，写完后 position 指向事件末尾
+     * <p>
+     * 空间不足时抛出 {@link java.nio.BufferOverflowException}，调用方会换一块缓冲区重试
+     *
+     * @param event  事件
+     * @param buffer 目标缓冲区
+     */
+    void encode(Object event, ByteBuffer buffer);
+
+    /**
+     * 从缓冲区读取事件，buffer 的 position 到 limit 恰好是一个事件
+     *
+     * @param buffer 源缓冲区
+     * @return 事件
+     */
+    Object decode(ByteBuffer buffer);
+}
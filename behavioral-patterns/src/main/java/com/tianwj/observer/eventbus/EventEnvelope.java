@@ -0,0 +1,129 @@
+package com.tianwj.observer.eventbus;
+
+import java.util.List;
+
+/**
+ * 开启指标或日志时投递的事件包装，携带发布时间、指标监听器以及日志位置
+ * <p>
+ * 由 {@link Subscriber#execute(Object)} 拆包，订阅方法只会收到原始事件。
+ * 属于 {@link DeliveryWindow} 的包装在执行、丢弃或拒绝后交还窗口循环使用，发布路径不再为每个事件分配对象
+ *
+ * @author tianwj
+ */
+final class EventEnvelope {
+    static final int IN_FLIGHT = 0;
+    static final int DONE = 1;
+    static final int FAILED = 2;
+
+    Object event;
+    long enqueuedNanos;
+    int eventCount;
+
+    /**
+     * 指标监听器，null表示未开启指标
+     */
+    EventBusMetricsListener listener;
+
+    /**
+     * 该事件之后的日志位置，未开启日志时为0
+     */
+    long journalOffset;
+
+    /**
+     * 在窗口中的状态，由窗口锁保护
+     */
+    int state;
+
+    /**
+     * 所属投递窗口，null表示不回收
+     */
+    private final DeliveryWindow window;
+
+    /**
+     * 批量包装中各事件的包装，批量执行完成后逐个完成
+     */
+    private final EventEnvelope[] members;
+
+    /**
+     * 投递窗口中的可回收包装
+     */
+    EventEnvelope(DeliveryWindow window) {
+        this.window = window;
+        this.members = null;
+    }
+
+    /**
+     * 不回收的包装，可由多个订阅者共享
+     */
+    EventEnvelope(Object event, long enqueuedNanos, EventBusMetricsListener listener) {
+        this.event = event;
+        this.enqueuedNanos = enqueuedNanos;
+        this.eventCount = 1;
+        this.listener = listener;
+        this.window = null;
+        this.members = null;
+    }
+
+    /**
+     * 批量包装
+     *
+     * @param events             批量事件
+     * @param firstEnqueuedNanos 最早事件的发布时间
+     * @param members            各事件的包装
+     */
+    EventEnvelope(List<Object> events, long firstEnqueuedNanos, EventEnvelope[] members) {
+        this.event = events;
+        this.enqueuedNanos = firstEnqueuedNanos;
+        this.eventCount = events.size();
+        this.listener = members[0].listener;
+        this.window = null;
+        this.members = members;
+    }
+
+    /**
+     * 投递结束，之后不能再访问本包装
+     *
+     * @param success 是否处理成功，丢弃视为成功，执行失败或被拒绝为失败
+     */
+    void complete(boolean success) {
+        if (members != null) {
+            for (EventEnvelope member : members) {
+                member.complete(success);
+            }
+        } else if (window != null) {
+            window.complete(this, success);
+        }
+    }
+
+    static Object unwrap(Object event) {
+        return event instanceof EventEnvelope ? ((EventEnvelope) event).event : event;
+    }
+
+    /**
+     * 通知被丢弃的事件
+     */
+    static void dropped(Subscriber subscriber, Object event) {
+        if (event instanceof EventEnvelope) {
+            EventEnvelope envelope = (EventEnvelope) event;
+            if (envelope.listener != null) {
+                envelope.listener.onDropped(subscriber);
+            }
+            envelope.complete(true);
+        }
+    }
+
+    /**
+     * 通知未能交给订阅者的事件，如执行器拒绝或信箱已满，日志不再越过该事件提交
+     */
+    static void rejected(Subscriber subscriber, Object event) {
+        if (event instanceof EventEnvelope) {
+            EventEnvelope envelope = (EventEnvelope) event;
+            if (envelope.listener != null) {
+                for (int i = 0; i < envelope.eventCount; i++) {
+                    envelope.listener.onRejected(subscriber);
+                }
+            }
+            envelope.complete(false);
+        }
+    }
+}
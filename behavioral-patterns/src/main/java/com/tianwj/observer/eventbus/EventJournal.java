@@ -0,0 +1,353 @@
+package com.tianwj.observer.eventbus;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 基于内存映射文件的分段事件日志
+ * <p>
+ * 事件由 {@link EventCodec} 直接编码进映射缓冲区（记录格式：4字节长度 + 事件字节，长度为0表示段结束），
+ * 追加时不复制、不分配对象。每段固定大小，写满后滚动到下一段，位置 = 段起始位置 + 段内偏移。
+ * 每个订阅者实例的 {@link DeliveryWindow} 记录尚未处理完的事件，{@link #sync()} 时按订阅者ID取所有实例中最小的可提交位置持久化，
+ * 重启后从提交位置重放未处理完的事件，保证至少一次投递。取消注册的订阅者在下一次 sync 时移除其提交位置。
+ *
+ * @author tianwj
+ */
+public class EventJournal implements Closeable {
+    private static final int HEADER_BYTES = 4;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String OFFSETS_FILE = "offsets.properties";
+
+    private final File directory;
+    private final int segmentBytes;
+    private final int syncEveryEvents;
+    private final EventCodec codec;
+
+    /**
+     * 订阅者ID -> 最近一次持久化（或启动时加载）的提交位置，由 this 保护
+     */
+    private Map<String, Long> committedOffsets = new HashMap<>();
+
+    /**
+     * 订阅者ID -> 各订阅者实例的投递窗口，由 this 保护
+     */
+    private final Map<String, List<DeliveryWindow>> windows = new HashMap<>();
+
+    /**
+     * 启动时日志中已有事件，在 {@link #replay(RecordConsumer)} 完成之前保持加载的提交位置，不删除段
+     */
+    private boolean recovering;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segmentBase;
+    private int unsyncedEvents;
+
+    /**
+     * @param directory       日志目录
+     * @param segmentBytes    每段大小
+     * @param syncEveryEvents 每追加多少个事件刷盘一次，0表示只在 {@link #sync()} 和关闭时刷盘
+     * @param codec           事件编解码器
+     */
+    public EventJournal(File directory, int segmentBytes, int syncEveryEvents, EventCodec codec) {
+        if (segmentBytes <= HEADER_BYTES || syncEveryEvents < 0) {
+            throw new IllegalArgumentException("invalid segmentBytes or syncEveryEvents");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncEveryEvents = syncEveryEvents;
+        this.codec = codec;
+        try {
+            Files.createDirectories(directory.toPath());
+            loadOffsets();
+            long[] bases = segmentBases();
+            openSegment(bases.length == 0 ? 0 : bases[bases.length - 1]);
+            // 跳过已写入的记录，定位到段尾
+            int position = 0;
+            int length;
+            while (position + HEADER_BYTES <= segmentBytes && (length = buffer.getInt(position)) > 0) {
+                position += HEADER_BYTES + length;
+            }
+            buffer.position(Math.min(position, segmentBytes));
+            recovering = bases.length > 1 || position > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 追加事件
+     *
+     * @param event 事件
+     * @return 该事件之后的位置，订阅者处理完该事件后提交此位置
+     */
+    public synchronized long append(Object event) {
+        while (true) {
+            int start = buffer.position();
+            if (segmentBytes - start > HEADER_BYTES) {
+                buffer.position(start + HEADER_BYTES);
+                try {
+                    codec.encode(event, buffer);
+                } catch (BufferOverflowException e) {
+                    discard(start);
+                    if (start == 0) {
+                        throw new IllegalArgumentException("event is larger than a journal segment: " + event);
+                    }
+                    roll();
+                    continue;
+                } catch (RuntimeException e) {
+                    // 编码失败时撤销已写入的部分，否则写入位置会留下长度为0的记录，之后追加的事件都读不到
+                    discard(start);
+                    throw e;
+                }
+                int length = buffer.position() - start - HEADER_BYTES;
+                if (length <= 0) {
+                    discard(start);
+                    throw new IllegalArgumentException("codec wrote no bytes for " + event);
+                }
+                // 最后写入长度，长度为0的记录不会被读到
+                buffer.putInt(start, length);
+                if (syncEveryEvents > 0 && ++unsyncedEvents >= syncEveryEvents) {
+                    buffer.force();
+                    unsyncedEvents = 0;
+                }
+                return segmentBase + buffer.position();
+            }
+            roll();
+        }
+    }
+
+    /**
+     * 为订阅者实例创建投递窗口，恢复期间从加载的提交位置开始，否则从日志当前末尾开始
+     * <p>
+     * 调用方应在追加要投递给该实例的第一个事件之前打开窗口，否则该事件会被视为已提交
+     *
+     * @param subscriberId 订阅者ID
+     */
+    synchronized DeliveryWindow openWindow(String subscriberId) {
+        DeliveryWindow window = new DeliveryWindow(recovering ? loadedOffset(subscriberId) : end());
+        windows.computeIfAbsent(subscriberId, k -> new ArrayList<>()).add(window);
+        return window;
+    }
+
+    /**
+     * 订阅者实例取消注册后移除其投递窗口，同一ID没有窗口后下一次 sync 不再保存其提交位置
+     */
+    synchronized void closeWindow(String subscriberId, DeliveryWindow window) {
+        List<DeliveryWindow> list = windows.get(subscriberId);
+        if (list != null && list.remove(window) && list.isEmpty()) {
+            windows.remove(subscriberId);
+        }
+    }
+
+    /**
+     * 订阅者当前可提交的位置，同一ID的多个实例取最小值；没有投递窗口时为加载或上次持久化的位置，从未提交过为0，即从头重放
+     */
+    public synchronized long committedOffset(String subscriberId) {
+        List<DeliveryWindow> list = recovering ? null : windows.get(subscriberId);
+        if (list == null) {
+            return loadedOffset(subscriberId);
+        }
+        long end = end();
+        long min = Long.MAX_VALUE;
+        for (DeliveryWindow window : list) {
+            min = Math.min(min, window.position(end));
+        }
+        return min;
+    }
+
+    /**
+     * 从所有订阅者中最小的提交位置开始，按顺序读取日志中的事件，结束恢复状态
+     * <p>
+     * 重放期间持有日志锁，其他线程的追加和 sync 会等待重放完成
+     *
+     * @param consumer 事件及其之后的位置
+     */
+    public synchronized void replay(RecordConsumer consumer) {
+        long from = minimumCommittedOffset();
+        try {
+            for (long base : segmentBases()) {
+                if (base + segmentBytes <= from) {
+                    continue;
+                }
+                try (FileChannel readChannel = FileChannel.open(segmentFile(base).toPath())) {
+                    ByteBuffer segment = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentBytes);
+                    int position = (int) Math.max(from - base, 0);
+                    int length;
+                    while (position + HEADER_BYTES <= segmentBytes && (length = segment.getInt(position)) > 0) {
+                        ByteBuffer record = segment.duplicate();
+                        record.limit(position + HEADER_BYTES + length).position(position + HEADER_BYTES);
+                        position += HEADER_BYTES + length;
+                        consumer.accept(codec.decode(record), base + position);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        recovering = false;
+    }
+
+    /**
+     * 刷盘，持久化提交位置，并删除所有订阅者都已处理完的段；恢复期间只保存加载的提交位置，不删除段
+     */
+    public synchronized void sync() {
+        buffer.force();
+        unsyncedEvents = 0;
+        try {
+            if (!recovering) {
+                Map<String, Long> offsets = new HashMap<>();
+                for (String subscriberId : windows.keySet()) {
+                    offsets.put(subscriberId, committedOffset(subscriberId));
+                }
+                committedOffsets = offsets;
+            }
+            storeOffsets();
+            if (recovering) {
+                return;
+            }
+            // 没有订阅者时所有已追加的事件都不再需要
+            long from = committedOffsets.isEmpty() ? end() : minimumCommittedOffset();
+            for (long base : segmentBases()) {
+                if (base + segmentBytes <= from && base != segmentBase) {
+                    Files.deleteIfExists(segmentFile(base).toPath());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    private long minimumCommittedOffset() {
+        long min = Long.MAX_VALUE;
+        for (long offset : committedOffsets.values()) {
+            min = Math.min(min, offset);
+        }
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    private long loadedOffset(String subscriberId) {
+        Long offset = committedOffsets.get(subscriberId);
+        return offset == null ? 0 : offset;
+    }
+
+    /**
+     * 日志当前末尾，即下一个事件的起始位置
+     */
+    private long end() {
+        return segmentBase + buffer.position();
+    }
+
+    /**
+     * 清零 start 之后已写入的字节并回退写入位置，残留的字节可能在之后被当作记录长度读取
+     */
+    private void discard(int start) {
+        for (int i = start, end = buffer.position(); i < end; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.putInt(start, 0);
+        buffer.position(start);
+    }
+
+    private void roll() {
+        try {
+            buffer.force();
+            channel.close();
+            openSegment(segmentBase + segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment(long base) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile(base), "rw")) {
+            channel = file.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        // 映射在通道关闭后仍然有效
+        segmentBase = base;
+    }
+
+    private File segmentFile(long base) {
+        return new File(directory, String.format("%020d%s", base, SEGMENT_SUFFIX));
+    }
+
+    private long[] segmentBases() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new long[0];
+        }
+        long[] bases = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            String name = files[i].getName();
+            bases[i] = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        }
+        Arrays.sort(bases);
+        return bases;
+    }
+
+    private void loadOffsets() throws IOException {
+        File file = new File(directory, OFFSETS_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        }
+        for (String subscriberId : properties.stringPropertyNames()) {
+            committedOffsets.put(subscriberId, Long.parseLong(properties.getProperty(subscriberId)));
+        }
+    }
+
+    private void storeOffsets() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Long> entry : committedOffsets.entrySet()) {
+            properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        File tmp = new File(directory, OFFSETS_FILE + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            properties.store(out, null);
+        }
+        Files.move(tmp.toPath(), new File(directory, OFFSETS_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 重放回调
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+
+        /**
+         * @param event      事件
+         * @param nextOffset 该事件之后的位置
+         */
+        void accept(Object event, long nextOffset);
+    }
+}
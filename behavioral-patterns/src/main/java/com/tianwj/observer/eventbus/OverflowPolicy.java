@@ -0,0 +1,23 @@
+package com.tianwj.observer.eventbus;
+
+/**
+ * 订阅者信箱已满时的处理策略
+ *
+ * @author tianwj
+ */
+public enum OverflowPolicy {
+    /**
+     * 阻塞发布线程，直到信箱有空位
+     */
+    BLOCK,
+
+    /**
+     * 丢弃信箱中最旧的事件
+     */
+    DROP_OLDEST,
+
+    /**
+     * 拒绝新事件，抛出 {@link java.util.concurrent.RejectedExecutionException}
+     */
+    REJECT
+}
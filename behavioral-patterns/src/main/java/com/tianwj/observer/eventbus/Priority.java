@@ -0,0 +1,23 @@
+package com.tianwj.observer.eventbus;
+
+/**
+ * 订阅者优先级，对应 {@link PriorityLaneScheduler} 中的调度通道
+ *
+ * @author tianwj
+ */
+public enum Priority {
+    /**
+     * 关键控制类事件
+     */
+    HIGH,
+
+    /**
+     * 普通事件
+     */
+    NORMAL,
+
+    /**
+     * 可延后的低价值事件，如遥测
+     */
+    LOW
+}
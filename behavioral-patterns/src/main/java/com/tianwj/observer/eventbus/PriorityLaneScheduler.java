@@ -0,0 +1,236 @@
+package com.tianwj.observer.eventbus;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 优先级通道调度器
+ * <p>
+ * 每个 {@link Priority} 一条通道，最多 parallelism 个工作任务在执行器上运行，
+ * 按平滑加权轮询在非空通道间选择下一个事件，既保证高优先级事件先执行，也不会饿死低优先级通道。
+ * 设置了截止时间（{@link Subscribe#deadlineMillis()}）的事件在出队时若已过期则直接丢弃
+ *
+ * @author tianwj
+ */
+public class PriorityLaneScheduler {
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final Executor executor;
+    private final int parallelism;
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final Runnable worker = this::work;
+
+    /**
+     * @param executor    执行器
+     * @param parallelism 最多同时运行的工作任务数
+     * @param weights     各通道权重，按 {@link Priority} 顺序（HIGH, NORMAL, LOW）
+     */
+    public PriorityLaneScheduler(Executor executor, int parallelism, int... weights) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (weights.length != PRIORITIES.length) {
+            throw new IllegalArgumentException("weights must have " + PRIORITIES.length + " elements");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        for (int i = 0; i < lanes.length; i++) {
+            if (weights[i] <= 0) {
+                throw new IllegalArgumentException("weights must be positive");
+            }
+            lanes[i] = new Lane(weights[i]);
+        }
+    }
+
+    /**
+     * 默认权重 HIGH:NORMAL:LOW = 8:4:1
+     */
+    public PriorityLaneScheduler(Executor executor, int parallelism) {
+        this(executor, parallelism, 8, 4, 1);
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 获取通道统计
+     */
+    public LaneStats getStats(Priority priority) {
+        return lanes[priority.ordinal()].stats;
+    }
+
+    void submit(Subscriber subscriber, Object event) {
+        long deadlineMillis = subscriber.getDeadlineMillis();
+        long deadline = deadlineMillis > 0 ? System.nanoTime() + deadlineMillis * 1_000_000L : 0L;
+        Lane lane = lanes[subscriber.getPriority().ordinal()];
+        lane.queue.offer(new Task(subscriber, event, deadline));
+        lane.stats.depth.incrementAndGet();
+        trySpawnWorker();
+    }
+
+    private void trySpawnWorker() {
+        int active;
+        while ((active = activeWorkers.get()) < parallelism) {
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(worker);
+                } catch (RuntimeException e) {
+                    activeWorkers.decrementAndGet();
+                    throw e;
+                }
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            drain();
+        } catch (RuntimeException | Error e) {
+            // 订阅者抛出的 Error 终止本工作任务前先释放名额，仍有事件时补充工作任务
+            activeWorkers.decrementAndGet();
+            if (!isEmpty()) {
+                try {
+                    trySpawnWorker();
+                } catch (RuntimeException rejected) {
+                    e.addSuppressed(rejected);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Task task = next();
+            if (task == null) {
+                activeWorkers.decrementAndGet();
+                // 退出前重新检查，避免与 submit 竞争导致事件滞留
+                if (isEmpty()) {
+                    return;
+                }
+                if (activeWorkers.incrementAndGet() > parallelism) {
+                    activeWorkers.decrementAndGet();
+                    return;
+                }
+                continue;
+            }
+            run(task);
+        }
+    }
+
+    private void run(Task task) {
+        if (task.deadline != 0 && System.nanoTime() - task.deadline > 0) {
+            lanes[task.subscriber.getPriority().ordinal()].stats.shed.increment();
+            EventEnvelope.dropped(task.subscriber, task.event);
+            return;
+        }
+        try {
+            task.subscriber.execute(task.event);
+        } catch (RuntimeException e) {
+            // 单个订阅者异常不能终止工作任务
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * 平滑加权轮询：非空通道累加权重，选当前权重最大的通道，被选中通道减去本轮总权重
+     */
+    private synchronized Task next() {
+        Lane selected = null;
+        int totalWeight = 0;
+        for (Lane lane : lanes) {
+            if (lane.queue.isEmpty()) {
+                continue;
+            }
+            lane.currentWeight += lane.weight;
+            totalWeight += lane.weight;
+            if (selected == null || lane.currentWeight > selected.currentWeight) {
+                selected = lane;
+            }
+        }
+        if (selected == null) {
+            return null;
+        }
+        selected.currentWeight -= totalWeight;
+        Task task = selected.queue.poll();
+        selected.stats.depth.decrementAndGet();
+        selected.stats.dequeued.increment();
+        return task;
+    }
+
+    private boolean isEmpty() {
+        for (Lane lane : lanes) {
+            if (!lane.queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Lane {
+        private final int weight;
+        private final ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<>();
+        private final LaneStats stats = new LaneStats();
+
+        /**
+         * 平滑加权轮询的当前权重，只在 next() 锁内访问
+         */
+        private int currentWeight;
+
+        Lane(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static class Task {
+        private final Subscriber subscriber;
+        private final Object event;
+
+        /**
+         * 截止时间（System.nanoTime），0表示不过期
+         */
+        private final long deadline;
+
+        Task(Subscriber subscriber, Object event, long deadline) {
+            this.subscriber = subscriber;
+            this.event = event;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 通道统计
+     */
+    public static class LaneStats {
+        private final AtomicInteger depth = new AtomicInteger();
+        private final LongAdder dequeued = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+
+        /**
+         * 排队中的事件数
+         */
+        public int getQueueDepth() {
+            return depth.get();
+        }
+
+        /**
+         * 已出队的事件数（包含过期丢弃的）
+         */
+        public long getDequeued() {
+            return dequeued.sum();
+        }
+
+        /**
+         * 过期丢弃的事件数
+         */
+        public long getShed() {
+            return shed.sum();
+        }
+    }
+}
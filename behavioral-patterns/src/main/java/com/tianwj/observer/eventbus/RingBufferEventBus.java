@@ -0,0 +1,198 @@
+package com.tianwj.observer.eventbus;
+
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于无锁环形缓冲区的观察者模式
+ * <p>
+ * post 将事件写入预分配的环形缓冲区（多生产者通过序号申请槽位），不经过执行器。
+ * 每个消费者线程负责一组订阅者，按序号顺序读取全部事件，只投递给属于本组的订阅者，
+ * 因此同一订阅者收到的事件保持发布顺序。缓冲区满时发布者按等待策略等待最慢的消费者。
+ * <p>
+ * 批量订阅者的事件经批量信箱攒批，攒满的批次在消费者线程上执行，超时的批次在共享的后台线程上执行。
+ * 消费者线程逐个事件直接投递，没有可以被替换的积压事件，因此不支持合并订阅者，注册时抛出异常
+ *
+ * @author tianwj
+ */
+public class RingBufferEventBus extends EventBus {
+    private final Object[] entries;
+    private final int indexMask;
+    private final int indexShift;
+
+    /**
+     * 每个槽位当前已发布的轮次，用于判断某个序号是否已发布
+     */
+    private final AtomicIntegerArray availableBuffer;
+
+    /**
+     * 已申请的最大序号
+     */
+    private final AtomicLong claimSequence = new AtomicLong(-1);
+
+    /**
+     * 发布者缓存的最慢消费者序号，减少扫描消费者序号的次数
+     */
+    private final AtomicLong gatingSequenceCache = new AtomicLong(-1);
+
+    private final Consumer[] consumers;
+    private final WaitStrategy waitStrategy;
+    private volatile boolean running = true;
+
+    public RingBufferEventBus(int bufferSize, int consumerCount, WaitStrategy waitStrategy) {
+        this(bufferSize, consumerCount, waitStrategy, Thread::new);
+    }
+
+    /**
+     * @param bufferSize    缓冲区大小，必须是2的幂
+     * @param consumerCount 消费者线程数，即订阅者分组数
+     * @param waitStrategy  等待策略
+     * @param threadFactory 消费者线程工厂
+     */
+    public RingBufferEventBus(int bufferSize, int consumerCount, WaitStrategy waitStrategy, ThreadFactory threadFactory) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+        if (consumerCount <= 0) {
+            throw new IllegalArgumentException("consumerCount must be positive");
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy is null");
+        }
+        this.entries = new Object[bufferSize];
+        this.indexMask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.availableBuffer = new AtomicIntegerArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            availableBuffer.set(i, -1);
+        }
+        this.waitStrategy = waitStrategy;
+        this.consumers = new Consumer[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            consumers[i] = new Consumer(i);
+        }
+        for (Consumer consumer : consumers) {
+            Thread thread = threadFactory.newThread(consumer);
+            thread.setName("ring-buffer-event-bus-" + consumer.group);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException 订阅者中有合并订阅方法
+     */
+    @Override
+    public void register(Object object) {
+        if (SubscriberRegistry.hasConflatingMethod(object.getClass())) {
+            throw new IllegalArgumentException(String.format(
+                    "%s has conflating subscriber methods. RingBufferEventBus delivers every event in order and cannot conflate.",
+                    object.getClass().getName()));
+        }
+        super.register(object);
+    }
+
+    @Override
+    public void post(Object event) {
+        if (!running) {
+            throw new IllegalStateException("event bus is shut down");
+        }
+        EventBusMetricsListener listener = getMetricsListener();
+        if (listener != null) {
+            List<Subscriber> subscribers = getRegistry().getMatchedSubscribers(event);
+            for (int i = 0, size = subscribers.size(); i < size; i++) {
+                Subscriber subscriber = subscribers.get(i);
+                if (!subscriber.isUnregistered()) {
+                    listener.onEnqueued(subscriber);
+                }
+            }
+            event = new EventEnvelope(event, System.nanoTime(), listener);
+        }
+        long sequence = claimSequence.incrementAndGet();
+        long wrapPoint = sequence - entries.length;
+        if (wrapPoint > gatingSequenceCache.get()) {
+            long minSequence;
+            while (wrapPoint > (minSequence = minimumConsumerSequence())) {
+                waitStrategy.idle();
+            }
+            gatingSequenceCache.set(minSequence);
+        }
+        int index = (int) sequence & indexMask;
+        entries[index] = event;
+        // 写入轮次即发布，消费者读到轮次后可见 entries 中的事件
+        availableBuffer.lazySet(index, (int) (sequence >>> indexShift));
+    }
+
+    @Override
+    protected void dispatch(Subscriber subscriber, Object event) {
+        subscriber.execute(event);
+    }
+
+    /**
+     * 停止消费者线程，未消费的事件将被丢弃
+     */
+    public void shutdown() {
+        running = false;
+    }
+
+    private long minimumConsumerSequence() {
+        long min = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            min = Math.min(min, consumer.sequence.get());
+        }
+        return min;
+    }
+
+    private boolean isAvailable(long sequence) {
+        return availableBuffer.get((int) sequence & indexMask) == (int) (sequence >>> indexShift);
+    }
+
+    private class Consumer implements Runnable {
+        private final int group;
+
+        /**
+         * 已处理的最大序号
+         */
+        private final AtomicLong sequence = new AtomicLong(-1);
+
+        Consumer(int group) {
+            this.group = group;
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            while (running) {
+                if (!isAvailable(next)) {
+                    waitStrategy.idle();
+                    continue;
+                }
+                // 批量处理所有连续可用的事件，最后一次性推进序号
+                do {
+                    handle(entries[(int) next & indexMask]);
+                    next++;
+                } while (isAvailable(next));
+                sequence.lazySet(next - 1);
+            }
+        }
+
+        private void handle(Object event) {
+            List<Subscriber> subscribers = getRegistry().getMatchedSubscribers(EventEnvelope.unwrap(event));
+            for (int i = 0, size = subscribers.size(); i < size; i++) {
+                Subscriber subscriber = subscribers.get(i);
+                if (subscriber.isUnregistered() || Math.floorMod(subscriber.hashCode(), consumers.length) != group) {
+                    continue;
+                }
+                try {
+                    deliver(subscriber, event);
+                } catch (RuntimeException | Error e) {
+                    // 单个订阅者异常不能终止消费者线程，消费者停止后发布方会一直等待环形缓冲区空位
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+    }
+}
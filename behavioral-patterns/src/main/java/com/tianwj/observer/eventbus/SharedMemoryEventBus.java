@@ -0,0 +1,258 @@
+package com.tianwj.observer.eventbus;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 跨进程观察者模式：同一台机器上的多个 JVM 通过共享内存映射文件互相广播事件
+ * <p>
+ * 文件划分为 slotCount 个区域，每个进程占用一个 slot（由配置指定），只写自己的区域、读其他所有区域，
+ * 因此进程之间无需加锁。每个区域是一个单写多读的广播环：记录格式为 4 字节长度 + 事件字节，
+ * 写入前先发布"写入意图"位置，读者解码后校验意图位置，若已被写者追上（套圈）则丢弃该事件并跳到最新位置。
+ * 映射内存的读写由 {@code Unsafe.storeFence()} / {@code Unsafe.loadFence()} 排序，不依赖 x86 的内存模型。
+ * 写者不等待读者，慢读者会丢失事件，丢失数量见 {@link #getLostEvents()}。
+ * <p>
+ * 本地 post 照常投递给本进程订阅者并写入共享内存；从其他进程读到的事件只投递给本进程订阅者，
+ * 订阅者仍然通过 {@link Subscribe} 注册。所有进程必须使用相同的文件、slotCount、slotCapacity 和编解码器。
+ *
+ * @author tianwj
+ */
+public class SharedMemoryEventBus extends EventBus implements Closeable {
+    private static final int HEADER_BYTES = 64;
+    private static final int WRITE_LIMIT_OFFSET = 0;
+    private static final int WRITE_POSITION_OFFSET = 8;
+    private static final int RECORD_HEADER_BYTES = 4;
+    private static final int PADDING = -1;
+
+    /**
+     * 映射内存没有 volatile 语义，需要显式屏障：写者 storeFence 保证意图先于记录、记录先于位置可见，
+     * 读者 loadFence 保证先读位置再读记录、读完记录再复查意图。项目以 Java 8 编译，通过反射获取 Unsafe 的屏障方法
+     */
+    private static final MethodHandle STORE_FENCE;
+    private static final MethodHandle LOAD_FENCE;
+
+    static {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STORE_FENCE = lookup.findVirtual(unsafeClass, "storeFence", MethodType.methodType(void.class)).bindTo(unsafe);
+            LOAD_FENCE = lookup.findVirtual(unsafeClass, "loadFence", MethodType.methodType(void.class)).bindTo(unsafe);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int slot;
+    private final int slotCount;
+    private final int slotCapacity;
+    private final int indexMask;
+    private final EventCodec codec;
+    private final WaitStrategy waitStrategy;
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer[] regions;
+
+    /**
+     * 本进程写位置
+     */
+    private long writePosition;
+
+    /**
+     * 其他进程区域的读位置
+     */
+    private final long[] readPositions;
+    private final LongAdder lostEvents = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * @param file         共享文件
+     * @param slot         本进程占用的 slot，0 ~ slotCount-1，各进程不能重复
+     * @param slotCount    参与广播的最大进程数
+     * @param slotCapacity 每个进程环形区域的字节数，必须是2的幂
+     * @param codec        事件编解码器
+     * @param waitStrategy 读线程空闲时的等待策略
+     */
+    public SharedMemoryEventBus(File file, int slot, int slotCount, int slotCapacity, EventCodec codec, WaitStrategy waitStrategy) {
+        if (slot < 0 || slot >= slotCount) {
+            throw new IllegalArgumentException("slot must be in [0, slotCount)");
+        }
+        if (slotCapacity <= 0 || Integer.bitCount(slotCapacity) != 1) {
+            throw new IllegalArgumentException("slotCapacity must be a power of 2");
+        }
+        this.slot = slot;
+        this.slotCount = slotCount;
+        this.slotCapacity = slotCapacity;
+        this.indexMask = slotCapacity - 1;
+        this.codec = codec;
+        this.waitStrategy = waitStrategy;
+        long regionBytes = HEADER_BYTES + (long) slotCapacity;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, regionBytes * slotCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.regions = new ByteBuffer[slotCount];
+        this.readPositions = new long[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            ByteBuffer region = buffer.duplicate();
+            region.position((int) (regionBytes * i)).limit((int) (regionBytes * (i + 1)));
+            regions[i] = region.slice();
+            // 只接收加入之后发布的事件
+            readPositions[i] = regions[i].getLong(WRITE_POSITION_OFFSET);
+        }
+        this.writePosition = readPositions[slot];
+
+        Thread reader = new Thread(this::readLoop, "shared-memory-event-bus-" + slot);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public void post(Object event) {
+        super.post(event);
+        publish(event);
+    }
+
+    /**
+     * 读套圈丢失的事件数
+     */
+    public long getLostEvents() {
+        return lostEvents.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+    }
+
+    private synchronized void publish(Object event) {
+        ByteBuffer region = regions[slot];
+        while (true) {
+            int index = (int) writePosition & indexMask;
+            // 写入意图：本次最多覆盖到区域末尾
+            region.putLong(WRITE_LIMIT_OFFSET, writePosition + slotCapacity - index);
+            // 意图先于本次记录的写入可见
+            storeFence();
+            ByteBuffer data = region.duplicate();
+            data.limit(HEADER_BYTES + slotCapacity).position(HEADER_BYTES + index + RECORD_HEADER_BYTES);
+            try {
+                codec.encode(event, data);
+            } catch (BufferOverflowException e) {
+                if (index == 0) {
+                    throw new IllegalArgumentException("event is larger than slotCapacity: " + event);
+                }
+                // 剩余空间不足，写填充记录后从头开始
+                region.putInt(HEADER_BYTES + index, PADDING);
+                advance(region, slotCapacity - index);
+                continue;
+            }
+            int length = data.position() - HEADER_BYTES - index - RECORD_HEADER_BYTES;
+            region.putInt(HEADER_BYTES + index, length);
+            advance(region, align(RECORD_HEADER_BYTES + length));
+            return;
+        }
+    }
+
+    private void advance(ByteBuffer region, int bytes) {
+        writePosition += bytes;
+        // 记录先于写位置可见
+        storeFence();
+        region.putLong(WRITE_POSITION_OFFSET, writePosition);
+    }
+
+    private void readLoop() {
+        while (running) {
+            boolean read = false;
+            for (int i = 0; i < slotCount; i++) {
+                if (i != slot) {
+                    read |= readSlot(i);
+                }
+            }
+            if (!read) {
+                waitStrategy.idle();
+            }
+        }
+    }
+
+    private boolean readSlot(int i) {
+        ByteBuffer region = regions[i];
+        long published = region.getLong(WRITE_POSITION_OFFSET);
+        loadFence();
+        long cursor = readPositions[i];
+        boolean read = false;
+        while (cursor < published) {
+            if (published - cursor > slotCapacity) {
+                lostEvents.increment();
+                cursor = published;
+                break;
+            }
+            int index = (int) cursor & indexMask;
+            int length = region.getInt(HEADER_BYTES + index);
+            if (length == PADDING) {
+                cursor += slotCapacity - index;
+                continue;
+            }
+            Object event = null;
+            if (length > 0 && index + RECORD_HEADER_BYTES + length <= slotCapacity) {
+                ByteBuffer record = region.duplicate();
+                record.limit(HEADER_BYTES + index + RECORD_HEADER_BYTES + length).position(HEADER_BYTES + index + RECORD_HEADER_BYTES);
+                try {
+                    event = codec.decode(record);
+                } catch (RuntimeException e) {
+                    // 读取期间被覆盖导致的数据错乱，下面的套圈校验会丢弃
+                }
+            }
+            // 读完记录后再复查意图
+            loadFence();
+            if (region.getLong(WRITE_LIMIT_OFFSET) - cursor > slotCapacity || event == null) {
+                lostEvents.increment();
+                cursor = region.getLong(WRITE_POSITION_OFFSET);
+                break;
+            }
+            cursor += align(RECORD_HEADER_BYTES + length);
+            read = true;
+            try {
+                super.post(event);
+            } catch (RuntimeException e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+        readPositions[i] = cursor;
+        return read;
+    }
+
+    private static void storeFence() {
+        try {
+            STORE_FENCE.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void loadFence() {
+        try {
+            LOAD_FENCE.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+}
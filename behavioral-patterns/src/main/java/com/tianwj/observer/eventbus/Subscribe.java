@@ -16,4 +16,37 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 @Documented
 public @interface Subscribe {
-}
\ No newline at end of file
+
+    /**
+     * 是否合并事件
+     * <p>
+     * 开启后同一合并键（见 {@link Conflatable}）尚未消费的事件会被最新事件替换，只适用于只关心最新值的订阅者
+     */
+    boolean conflate() default false;
+
+    /**
+     * 批量大小，大于0时为批量订阅方法
+     * <p>
+     * 批量订阅方法的参数必须是 {@code List<事件类型>}，事件先在订阅者缓冲区中积攒，攒够该数量后一次性投递
+     */
+    int batchSize() default 0;
+
+    /**
+     * 批量订阅方法中事件的最长等待时间（毫秒），超时后即使未攒够 {@link #batchSize()} 也会投递
+     */
+    long maxLingerMillis() default 100;
+
+    /**
+     * 优先级，只在使用 {@link PriorityLaneScheduler} 的 {@link AsyncEventBus} 中生效
+     * <p>
+     * 合并与批量订阅方法由各自的信箱消费，不能设置优先级
+     */
+    Priority priority() default Priority.NORMAL;
+
+    /**
+     * 事件从发布到开始执行的最长等待时间（毫秒），超时未执行的事件被丢弃，0表示不过期
+     * <p>
+     * 只在使用 {@link PriorityLaneScheduler} 的 {@link AsyncEventBus} 中生效，合并与批量订阅方法不能设置截止时间
+     */
+    long deadlineMillis() default 0;
+}
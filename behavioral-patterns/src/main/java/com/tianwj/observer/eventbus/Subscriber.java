@@ -1,6 +1,5 @@
 package com.tianwj.observer.eventbus;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 /**
@@ -19,22 +18,178 @@ public class Subscriber {
      */
     private final Method method;
 
+    /**
+     * 注册时绑定的调用器，避免每次投递都走 Method.invoke
+     */
+    private final SubscriberInvoker invoker;
+
+    /**
+     * 是否合并事件，见 {@link Subscribe#conflate()}
+     */
+    private final boolean conflated;
+
+    /**
+     * 批量大小，见 {@link Subscribe#batchSize()}
+     */
+    private final int batchSize;
+
+    /**
+     * 批量最长等待时间，见 {@link Subscribe#maxLingerMillis()}
+     */
+    private final long maxLingerMillis;
+
+    /**
+     * 优先级，见 {@link Subscribe#priority()}
+     */
+    private final Priority priority;
+
+    /**
+     * 截止时间，见 {@link Subscribe#deadlineMillis()}
+     */
+    private final long deadlineMillis;
+
+    /**
+     * 注册序号，由 {@link SubscriberRegistry} 在注册时分配，分发快照按此排序
+     */
+    long sequence;
+
+    /**
+     * 是否已取消注册，由 {@link SubscriberRegistry} 在取消注册时设置；分发快照延迟整理，可能仍包含已取消注册的订阅者
+     */
+    volatile boolean unregistered;
+
+    /**
+     * 跨进程重启稳定的订阅者ID，用于事件日志提交位置，延迟计算
+     */
+    private String id;
+
     public Subscriber(Object target, Method method) {
+        this(target, accessible(method), SubscriberInvoker.of(method));
+    }
+
+    /**
+     * 使用已缓存的调用器构造，见 {@link SubscriberRegistry}
+     */
+    Subscriber(Object target, Method method, SubscriberInvoker invoker) {
         this.target = target;
         this.method = method;
-        this.method.setAccessible(true);
+        this.invoker = invoker;
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        this.conflated = subscribe != null && subscribe.conflate();
+        this.batchSize = subscribe == null ? 0 : subscribe.batchSize();
+        this.maxLingerMillis = subscribe == null ? 0 : subscribe.maxLingerMillis();
+        this.priority = subscribe == null ? Priority.NORMAL : subscribe.priority();
+        this.deadlineMillis = subscribe == null ? 0 : subscribe.deadlineMillis();
+    }
+
+    private static Method accessible(Method method) {
+        method.setAccessible(true);
+        return method;
+    }
+
+    public Object getTarget() {
+        return target;
+    }
+
+    /**
+     * 订阅者ID：订阅者类名#方法名(参数类型)，同一个类的多个实例共享ID
+     */
+    public String getId() {
+        String result = id;
+        if (result == null) {
+            result = target.getClass().getName() + "#" + method.getName() + "(" + method.getParameterTypes()[0].getName() + ")";
+            id = result;
+        }
+        return result;
+    }
+
+    /**
+     * 是否已取消注册，遍历 {@link SubscriberRegistry#getMatchedSubscribers(Object)} 的结果时应跳过已取消注册的订阅者
+     */
+    public boolean isUnregistered() {
+        return unregistered;
+    }
+
+    public boolean isConflated() {
+        return conflated;
+    }
+
+    public boolean isBatched() {
+        return batchSize > 0;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getMaxLingerMillis() {
+        return maxLingerMillis;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
     }
 
     /**
      * 执行订阅者方法
      *
-     * @param event method方法的参数
+     * @param event method方法的参数，批量订阅方法为事件列表
      */
     public void execute(Object event) {
+        if (event instanceof EventEnvelope) {
+            executeEnvelope((EventEnvelope) event);
+            return;
+        }
+        invoke(event);
+    }
+
+    private void executeEnvelope(EventEnvelope envelope) {
+        EventBusMetricsListener listener = envelope.listener;
+        long start = listener == null ? 0 : System.nanoTime();
+        Throwable error = null;
         try {
-            method.invoke(target, event);
-        } catch (IllegalAccessException | InvocationTargetException e) {
+            invoke(envelope.event);
+        } catch (RuntimeException | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                listener.onExecuted(this, envelope.eventCount, start - envelope.enqueuedNanos, System.nanoTime() - start, error);
+            }
+            // 包装交还投递窗口，失败的事件之后不再提交日志位置，重启后会重放
+            envelope.complete(error == null);
+        }
+    }
+
+    private void invoke(Object event) {
+        try {
+            invoker.invoke(target, event);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Subscriber)) {
+            return false;
+        }
+        Subscriber that = (Subscriber) obj;
+        // 同一个订阅者对象的同一个方法视为同一订阅者
+        return target == that.target && method.equals(that.method);
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 + method.hashCode()) * 31 + System.identityHashCode(target);
+    }
 }
@@ -0,0 +1,103 @@
+package com.tianwj.observer.eventbus;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 订阅方法调用器
+ * <p>
+ * 注册时绑定一次，优先使用 LambdaMetafactory 生成的直接调用，其次 MethodHandle，最后回退到反射
+ *
+ * @author tianwj
+ */
+@FunctionalInterface
+interface SubscriberInvoker {
+
+    /**
+     * 调用订阅方法
+     *
+     * @param target 订阅者对象
+     * @param event  事件
+     * @throws Throwable 订阅方法抛出的原始异常
+     */
+    void invoke(Object target, Object event) throws Throwable;
+
+    /**
+     * 为订阅方法创建调用器
+     *
+     * @param method 已设置 accessible 的订阅方法
+     * @return 调用器
+     */
+    static SubscriberInvoker of(Method method) {
+        if (isLambdaAccessible(method)) {
+            try {
+                return lambdaInvoker(method);
+            } catch (Throwable ignored) {
+                // 生成失败，继续尝试 MethodHandle
+            }
+        }
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            MethodHandle exact = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return exact::invokeExact;
+        } catch (IllegalAccessException e) {
+            return (target, event) -> {
+                try {
+                    method.invoke(target, event);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            };
+        }
+    }
+
+    static SubscriberInvoker lambdaInvoker(Method method) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle implMethod = lookup.unreflect(method);
+        MethodType invokedType = MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]);
+        MethodHandle factory = LambdaMetafactory.metafactory(
+                lookup,
+                "invoke",
+                MethodType.methodType(SubscriberInvoker.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                implMethod,
+                invokedType).getTarget();
+        return (SubscriberInvoker) factory.invoke();
+    }
+
+    /**
+     * 生成的 lambda 类只能访问当前类加载器可见的公共类型的公共实例方法
+     */
+    static boolean isLambdaAccessible(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+        for (Class<?> type : new Class<?>[]{method.getDeclaringClass(), method.getParameterTypes()[0]}) {
+            if (type.isPrimitive() || !isPublicAndVisible(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isPublicAndVisible(Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            return Class.forName(type.getName(), false, SubscriberInvoker.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.tianwj.observer.eventbus;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 订阅者信箱
+ * <p>
+ * 每个订阅者一个有界队列，同一时刻最多只有一个执行器任务在批量消费，保证单个订阅者内的事件顺序
+ *
+ * @author tianwj
+ */
+class SubscriberMailbox implements Runnable {
+    private final Subscriber subscriber;
+    private final Executor executor;
+    private final BlockingQueue<Object> queue;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * 是否已有消费任务提交到执行器
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    SubscriberMailbox(Subscriber subscriber, Executor executor, int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * 事件入队，按需提交消费任务
+     *
+     * @param event 事件
+     */
+    void offer(Object event) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    EventEnvelope.rejected(subscriber, event);
+                    throw new RejectedExecutionException("interrupted while waiting for mailbox space", e);
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(event)) {
+                    EventEnvelope.dropped(subscriber, queue.poll());
+                }
+                break;
+            case REJECT:
+            default:
+                if (!queue.offer(event)) {
+                    EventEnvelope.rejected(subscriber, event);
+                    throw new RejectedExecutionException("mailbox of " + subscriber.getTarget() + " is full");
+                }
+                break;
+        }
+        schedule();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < batchSize; i++) {
+                Object event = queue.poll();
+                if (event == null) {
+                    break;
+                }
+                subscriber.execute(event);
+            }
+        } finally {
+            scheduled.set(false);
+            // 释放标记后重新检查，避免与发布线程的竞争丢失事件
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.tianwj.observer.eventbus;
+
+import com.tianwj.common.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内置指标监听器，按订阅者汇总调用次数、异常次数、队列深度和延迟直方图，订阅者取消注册时移除其指标
+ *
+ * @author tianwj
+ */
+public class SubscriberMetrics implements EventBusMetricsListener {
+    private final ConcurrentMap<Subscriber, Stats> statsMap = new ConcurrentHashMap<>();
+
+    @Override
+    public void onEnqueued(Subscriber subscriber) {
+        stats(subscriber).enqueued.increment();
+    }
+
+    @Override
+    public void onDropped(Subscriber subscriber) {
+        Stats stats = statsMap.get(subscriber);
+        if (stats != null) {
+            stats.dropped.increment();
+        }
+    }
+
+    @Override
+    public void onRejected(Subscriber subscriber) {
+        Stats stats = statsMap.get(subscriber);
+        if (stats != null) {
+            stats.rejected.increment();
+        }
+    }
+
+    /**
+     * 指标在 onEnqueued 时创建，取消注册后到达的执行回调不再重新创建
+     */
+    @Override
+    public void onExecuted(Subscriber subscriber, int eventCount, long queueNanos, long executeNanos, Throwable error) {
+        Stats stats = statsMap.get(subscriber);
+        if (stats == null) {
+            return;
+        }
+        stats.invocations.increment();
+        stats.executedEvents.add(eventCount);
+        if (error != null) {
+            stats.errors.increment();
+        }
+        stats.queueLatency.record(queueNanos);
+        stats.executionLatency.record(executeNanos);
+    }
+
+    @Override
+    public void onUnregistered(Subscriber subscriber) {
+        statsMap.remove(subscriber);
+    }
+
+    /**
+     * 获取所有订阅者的指标
+     */
+    public Map<Subscriber, Stats> getStats() {
+        return Collections.unmodifiableMap(statsMap);
+    }
+
+    public Stats getStats(Subscriber subscriber) {
+        return statsMap.get(subscriber);
+    }
+
+    private Stats stats(Subscriber subscriber) {
+        Stats stats = statsMap.get(subscriber);
+        if (stats == null) {
+            stats = statsMap.computeIfAbsent(subscriber, k -> new Stats());
+        }
+        return stats;
+    }
+
+    /**
+     * 单个订阅者的指标
+     */
+    public static class Stats {
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder enqueued = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder executedEvents = new LongAdder();
+
+        /**
+         * 发布到开始执行的延迟
+         */
+        private final LatencyHistogram queueLatency = new LatencyHistogram();
+
+        /**
+         * 订阅方法执行耗时
+         */
+        private final LatencyHistogram executionLatency = new LatencyHistogram();
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        /**
+         * 被执行器或信箱拒绝的事件数
+         */
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        /**
+         * 已交给订阅者但尚未执行的事件数
+         */
+        public long getQueueDepth() {
+            return Math.max(0, enqueued.sum() - dropped.sum() - rejected.sum() - executedEvents.sum());
+        }
+
+        public LatencyHistogram getQueueLatency() {
+            return queueLatency;
+        }
+
+        public LatencyHistogram getExecutionLatency() {
+            return executionLatency;
+        }
+    }
+}
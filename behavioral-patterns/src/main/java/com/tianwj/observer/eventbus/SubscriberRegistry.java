@@ -1,14 +1,28 @@
 package com.tianwj.observer.eventbus;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.TypeToken;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * 订阅者注册表
@@ -16,67 +30,265 @@ import java.util.concurrent.CopyOnWriteArraySet;
  * @author tianwj
  */
 public class SubscriberRegistry {
-    private final ConcurrentMap<Class<?>, CopyOnWriteArraySet<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    /**
+     * 事件类型 -> 订阅者，按注册顺序排列
+     * <p>
+     * 使用 LinkedHashSet，注册、取消注册为 O(1)，不再像 CopyOnWriteArraySet 一样每次扫描并复制整个数组；
+     * 只在 registeredListeners 锁内读写，发布时只读取分发缓存中的不可变快照
+     */
+    private final Map<Class<?>, Set<Subscriber>> subscribers = new HashMap<>();
 
-    public void register(Object listener) {
-        Map<Class<?>, Collection<Subscriber>> listenerMethods = findAllSubscribers(listener);
-        for (Map.Entry<Class<?>, Collection<Subscriber>> entry : listenerMethods.entrySet()) {
-            Class<?> eventType = entry.getKey();
-            Collection<Subscriber> eventMethodsInListener = entry.getValue();
+    /**
+     * 事件类型 -> 该类型所有父类、接口（包含自身）
+     * <p>
+     * 类的继承关系不会变化，永久缓存
+     */
+    private final ConcurrentMap<Class<?>, Set<Class<?>>> flattenHierarchyCache = new ConcurrentHashMap<>();
 
-            CopyOnWriteArraySet<Subscriber> eventSubscribers = subscribers.get(eventType);
-            if (eventSubscribers == null) {
-                subscribers.putIfAbsent(eventType, new CopyOnWriteArraySet<>());
-                eventSubscribers = subscribers.get(eventType);
-            }
+    /**
+     * 分发缓存，发布的事件类型 -> 匹配的订阅者快照（按注册顺序排列）
+     * <p>
+     * 只在 registeredListeners 锁内写入：register/unregister 时通过 {@link #dispatchIndex} 找到受影响的条目，
+     * 注册追加到快照数组的预留空间；取消注册只标记订阅者并计数，已取消注册的订阅者超过快照一半时才整理为新数组，
+     * 均摊 O(1)，其他事件类型的快照保持不变，发布时无锁读取
+     */
+    private final ConcurrentMap<Class<?>, SubscriberList> dispatchCache = new ConcurrentHashMap<>();
+
+    /**
+     * 订阅的事件类型 -> 继承层次中包含该类型的已缓存发布类型，注册变更时不必扫描整个分发缓存，由 registeredListeners 锁保护
+     */
+    private final Map<Class<?>, Set<Class<?>>> dispatchIndex = new HashMap<>();
+
+    /**
+     * 注册序号，由 registeredListeners 锁保护
+     */
+    private long registrationSequence;
 
-            eventSubscribers.addAll(eventMethodsInListener);
+    /**
+     * 已注册的订阅者对象（按引用比较） -> 其所有订阅者，取消注册时直接取出，无需重新反射构造 Subscriber 比较
+     */
+    private final Map<Object, Map<Class<?>, Collection<Subscriber>>> registeredListeners = new IdentityHashMap<>();
+
+    private static final Comparator<Subscriber> SEQUENCE_ORDER = Comparator.comparingLong(subscriber -> subscriber.sequence);
+
+    /**
+     * 类 -> 已解析的订阅方法（包含父类、接口中的订阅方法）
+     * <p>
+     * 每个类只反射扫描一次，类卸载时随之回收
+     */
+    private static final ClassValue<ImmutableList<SubscriberMethod>> SUBSCRIBER_METHODS = new ClassValue<ImmutableList<SubscriberMethod>>() {
+        @Override
+        protected ImmutableList<SubscriberMethod> computeValue(Class<?> type) {
+            ImmutableList.Builder<SubscriberMethod> builder = ImmutableList.builder();
+            for (Method method : getAnnotatedMethods(type)) {
+                method.setAccessible(true);
+                builder.add(new SubscriberMethod(method, getEventType(method), SubscriberInvoker.of(method)));
+            }
+            return builder.build();
         }
-    }
+    };
 
-    public void unregister(Object listener) {
+    public void register(Object listener) {
         Map<Class<?>, Collection<Subscriber>> listenerMethods = findAllSubscribers(listener);
+        synchronized (registeredListeners) {
+            if (registeredListeners.containsKey(listener)) {
+                // 重复注册忽略
+                return;
+            }
+            registeredListeners.put(listener, listenerMethods);
+            for (Map.Entry<Class<?>, Collection<Subscriber>> entry : listenerMethods.entrySet()) {
+                Class<?> eventType = entry.getKey();
+                Collection<Subscriber> eventMethodsInListener = entry.getValue();
+                for (Subscriber subscriber : eventMethodsInListener) {
+                    subscriber.sequence = ++registrationSequence;
+                }
 
-        for (Map.Entry<Class<?>, Collection<Subscriber>> entry : listenerMethods.entrySet()) {
-            Class<?> eventType = entry.getKey();
-            Collection<Subscriber> listenerMethodsForType = entry.getValue();
+                subscribers.computeIfAbsent(eventType, k -> new LinkedHashSet<>()).addAll(eventMethodsInListener);
+            }
+            for (Class<?> postedEventType : cachedPostedTypes(listenerMethods.keySet())) {
+                Subscriber[] added = matching(postedEventType, listenerMethods);
+                dispatchCache.put(postedEventType, dispatchCache.get(postedEventType).append(added));
+            }
+        }
+    }
 
-            CopyOnWriteArraySet<Subscriber> currentSubscribers = subscribers.get(eventType);
-            if (currentSubscribers == null || !currentSubscribers.removeAll(listenerMethodsForType)) {
+    /**
+     * 取消注册
+     *
+     * @param listener 已注册的订阅者对象
+     * @return 被移除的订阅者
+     */
+    public Collection<Subscriber> unregister(Object listener) {
+        Map<Class<?>, Collection<Subscriber>> listenerMethods;
+        synchronized (registeredListeners) {
+            listenerMethods = registeredListeners.remove(listener);
+            if (listenerMethods == null) {
                 throw new IllegalArgumentException("missing event subscriber for an annotated method. Is " + listener + " registered?");
             }
+            for (Map.Entry<Class<?>, Collection<Subscriber>> entry : listenerMethods.entrySet()) {
+                Set<Subscriber> currentSubscribers = subscribers.get(entry.getKey());
+                if (currentSubscribers != null) {
+                    // 逐个移除，removeAll 会遍历整个订阅者集合
+                    for (Subscriber subscriber : entry.getValue()) {
+                        subscriber.unregistered = true;
+                        currentSubscribers.remove(subscriber);
+                    }
+                    if (currentSubscribers.isEmpty()) {
+                        subscribers.remove(entry.getKey());
+                    }
+                }
+            }
+            for (Class<?> postedEventType : cachedPostedTypes(listenerMethods.keySet())) {
+                SubscriberList current = dispatchCache.get(postedEventType);
+                if (current.unregistered(matching(postedEventType, listenerMethods).length)) {
+                    dispatchCache.put(postedEventType, current.compact());
+                }
+            }
+        }
+
+        List<Subscriber> removed = new ArrayList<>();
+        for (Collection<Subscriber> listenerMethodsForType : listenerMethods.values()) {
+            removed.addAll(listenerMethodsForType);
         }
+        return removed;
     }
 
+    /**
+     * 获取事件匹配的订阅者，订阅了事件类型本身及其父类、接口的订阅者都会匹配
+     * <p>
+     * 命中分发缓存时不加锁、不扫描注册表，也不分配新对象；每个事件类型第一次发布时在锁内构建快照。
+     * 取消注册后快照延迟整理，遍历时应跳过 {@link Subscriber#isUnregistered()} 的订阅者
+     *
+     * @param event 事件
+     * @return 不可变的订阅者列表
+     */
     public List<Subscriber> getMatchedSubscribers(Object event) {
-        List<Subscriber> matchedSubscribers = new ArrayList<>();
         Class<?> postedEventType = event.getClass();
-        for (Map.Entry<Class<?>, CopyOnWriteArraySet<Subscriber>> entry : subscribers.entrySet()) {
-            Class<?> eventType = entry.getKey();
-            Collection<Subscriber> eventSubscribers = entry.getValue();
-            if (postedEventType.isAssignableFrom(eventType)) {
-                matchedSubscribers.addAll(eventSubscribers);
+        SubscriberList matchedSubscribers = dispatchCache.get(postedEventType);
+        if (matchedSubscribers == null) {
+            // 与注册变更互斥，避免并发构建的旧快照覆盖注册时的更新
+            synchronized (registeredListeners) {
+                matchedSubscribers = dispatchCache.get(postedEventType);
+                if (matchedSubscribers == null) {
+                    matchedSubscribers = buildMatchedSubscribers(postedEventType);
+                    dispatchCache.put(postedEventType, matchedSubscribers);
+                    for (Class<?> eventType : flattenHierarchy(postedEventType)) {
+                        dispatchIndex.computeIfAbsent(eventType, k -> new HashSet<>()).add(postedEventType);
+                    }
+                }
             }
         }
         return matchedSubscribers;
     }
 
+    private SubscriberList buildMatchedSubscribers(Class<?> postedEventType) {
+        List<Subscriber> matched = new ArrayList<>();
+        for (Class<?> eventType : flattenHierarchy(postedEventType)) {
+            Collection<Subscriber> eventSubscribers = subscribers.get(eventType);
+            if (eventSubscribers != null) {
+                matched.addAll(eventSubscribers);
+            }
+        }
+        Subscriber[] array = matched.toArray(new Subscriber[0]);
+        // 各事件类型内已按注册顺序排列，合并后整体按注册顺序排列
+        Arrays.sort(array, SEQUENCE_ORDER);
+        return new SubscriberList(array, array.length, 0);
+    }
+
+    /**
+     * 继承层次中包含任一订阅事件类型的已缓存发布类型
+     */
+    private Set<Class<?>> cachedPostedTypes(Set<Class<?>> eventTypes) {
+        if (eventTypes.size() == 1) {
+            Set<Class<?>> postedTypes = dispatchIndex.get(eventTypes.iterator().next());
+            return postedTypes == null ? Collections.emptySet() : postedTypes;
+        }
+        Set<Class<?>> postedTypes = new HashSet<>();
+        for (Class<?> eventType : eventTypes) {
+            Set<Class<?>> cached = dispatchIndex.get(eventType);
+            if (cached != null) {
+                postedTypes.addAll(cached);
+            }
+        }
+        return postedTypes;
+    }
+
+    /**
+     * 订阅者对象中与发布的事件类型匹配的订阅者，按注册顺序排列
+     *
+     * @return 没有匹配的订阅者时返回 null
+     */
+    private Subscriber[] matching(Class<?> postedEventType, Map<Class<?>, Collection<Subscriber>> listenerMethods) {
+        Set<Class<?>> hierarchy = flattenHierarchy(postedEventType);
+        List<Subscriber> matched = null;
+        for (Map.Entry<Class<?>, Collection<Subscriber>> entry : listenerMethods.entrySet()) {
+            if (hierarchy.contains(entry.getKey())) {
+                if (matched == null) {
+                    matched = new ArrayList<>();
+                }
+                matched.addAll(entry.getValue());
+            }
+        }
+        if (matched == null) {
+            return null;
+        }
+        Subscriber[] array = matched.toArray(new Subscriber[0]);
+        Arrays.sort(array, SEQUENCE_ORDER);
+        return array;
+    }
+
+    private Set<Class<?>> flattenHierarchy(Class<?> clazz) {
+        Set<Class<?>> types = flattenHierarchyCache.get(clazz);
+        if (types == null) {
+            types = ImmutableSet.copyOf(TypeToken.of(clazz).getTypes().rawTypes());
+            flattenHierarchyCache.putIfAbsent(clazz, types);
+        }
+        return types;
+    }
+
+
+    /**
+     * 类中是否有合并订阅方法
+     *
+     * @param type 订阅者类型
+     */
+    static boolean hasConflatingMethod(Class<?> type) {
+        for (SubscriberMethod subscriberMethod : SUBSCRIBER_METHODS.get(type)) {
+            if (subscriberMethod.method.getAnnotation(Subscribe.class).conflate()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private Map<Class<?>, Collection<Subscriber>> findAllSubscribers(Object listener) {
         Map<Class<?>, Collection<Subscriber>> eventTypeSubscribers = new HashMap<>();
-        Class<?> clazz = listener.getClass();
-        for (Method method : getAnnotatedMethods(clazz)) {
-            Class<?>[] parameterTypes = method.getParameterTypes();
-            Class<?> eventType = parameterTypes[0];
-            eventTypeSubscribers.computeIfAbsent(eventType, k -> new ArrayList<>()).add(new Subscriber(listener, method));
+        for (SubscriberMethod subscriberMethod : SUBSCRIBER_METHODS.get(listener.getClass())) {
+            eventTypeSubscribers.computeIfAbsent(subscriberMethod.eventType, k -> new ArrayList<>())
+                    .add(new Subscriber(listener, subscriberMethod.method, subscriberMethod.invoker));
         }
 
         return eventTypeSubscribers;
     }
 
-    private List<Method> getAnnotatedMethods(Class<?> clazz) {
+    /**
+     * 获取类及其父类、接口中的订阅方法，子类覆盖的方法只保留子类中的声明
+     */
+    private static List<Method> getAnnotatedMethods(Class<?> clazz) {
+        Map<List<Object>, Method> identifiers = new LinkedHashMap<>();
+        for (Class<?> type : TypeToken.of(clazz).getTypes().rawTypes()) {
+            for (Method method : getDeclaredAnnotatedMethods(type)) {
+                List<Object> identifier = Arrays.asList(method.getName(), Arrays.asList(method.getParameterTypes()));
+                identifiers.putIfAbsent(identifier, method);
+            }
+        }
+        return new ArrayList<>(identifiers.values());
+    }
+
+    private static List<Method> getDeclaredAnnotatedMethods(Class<?> clazz) {
         List<Method> annotatedMethods = new ArrayList<>();
         for (Method method : clazz.getDeclaredMethods()) {
-            if (method.isAnnotationPresent(Subscribe.class)) {
+            if (method.isAnnotationPresent(Subscribe.class) && !method.isSynthetic()) {
                 // 校验注册方法参数
                 Class<?>[] parameterTypes = method.getParameterTypes();
                 if (parameterTypes.length != 1) {
@@ -86,10 +298,139 @@ public class SubscriberRegistry {
                             parameterTypes.length));
                 }
 
+                Subscribe subscribe = method.getAnnotation(Subscribe.class);
+                if (subscribe.batchSize() > 0) {
+                    if (parameterTypes[0] != List.class) {
+                        throw new IllegalArgumentException(String.format(
+                                "Method %s is a batch subscriber but its parameter is %s. Batch subscriber methods must take a List.",
+                                method.getName(),
+                                parameterTypes[0].getName()));
+                    }
+                    if (subscribe.conflate() || subscribe.maxLingerMillis() <= 0) {
+                        throw new IllegalArgumentException(String.format(
+                                "Method %s is a batch subscriber. Batch subscriber methods must have a positive maxLingerMillis and cannot conflate.",
+                                method.getName()));
+                    }
+                }
+                // 合并与批量订阅方法由各自的信箱消费，不经过优先级通道
+                if ((subscribe.conflate() || subscribe.batchSize() > 0)
+                        && (subscribe.priority() != Priority.NORMAL || subscribe.deadlineMillis() > 0)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Method %s conflates or batches events. Conflating and batch subscriber methods cannot set a priority or deadline.",
+                            method.getName()));
+                }
+
                 annotatedMethods.add(method);
             }
         }
 
         return annotatedMethods;
     }
+
+    /**
+     * 订阅的事件类型，批量订阅方法取 List 的泛型参数
+     */
+    private static Class<?> getEventType(Method method) {
+        Class<?> parameterType = method.getParameterTypes()[0];
+        if (method.getAnnotation(Subscribe.class).batchSize() <= 0) {
+            return parameterType;
+        }
+        Type genericType = method.getGenericParameterTypes()[0];
+        if (genericType instanceof ParameterizedType) {
+            Type elementType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            return TypeToken.of(elementType).getRawType();
+        }
+        return Object.class;
+    }
+
+    /**
+     * 分发缓存中的订阅者快照，按注册序号升序排列
+     * <p>
+     * 快照本身不可变；追加时在锁内写入数组中 size 之后的预留空间并创建新快照，
+     * 旧快照只读取自己的 size 之内的元素，不受影响。取消注册的订阅者留在快照中（墓碑），
+     * 超过快照一半时复制为只包含已注册订阅者的新快照
+     */
+    private static final class SubscriberList extends AbstractList<Subscriber> implements RandomAccess {
+        private final Subscriber[] array;
+        private final int size;
+
+        /**
+         * 快照中已取消注册的订阅者个数，只在锁内读写，发布时不读取
+         */
+        private int unregistered;
+
+        SubscriberList(Subscriber[] array, int size, int unregistered) {
+            this.array = array;
+            this.size = size;
+            this.unregistered = unregistered;
+        }
+
+        @Override
+        public Subscriber get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+            }
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 追加新注册的订阅者，数组空间不足时按1.5倍扩容，均摊 O(1)
+         * <p>
+         * 只能在最新的快照上调用，注册序号递增保证追加后仍然有序
+         */
+        SubscriberList append(Subscriber[] added) {
+            Subscriber[] target = array;
+            int newSize = size + added.length;
+            if (newSize > target.length) {
+                target = Arrays.copyOf(array, Math.max(newSize, size + (size >> 1)));
+            }
+            System.arraycopy(added, 0, target, size, added.length);
+            return new SubscriberList(target, newSize, unregistered);
+        }
+
+        /**
+         * 记录快照中新取消注册的订阅者
+         *
+         * @param count 个数
+         * @return 是否需要整理
+         */
+        boolean unregistered(int count) {
+            unregistered += count;
+            return unregistered << 1 > size;
+        }
+
+        /**
+         * 复制为只包含已注册订阅者的新快照，距上次整理至少有一半订阅者取消注册，均摊到每次取消注册为 O(1)
+         */
+        SubscriberList compact() {
+            Subscriber[] target = new Subscriber[size - unregistered];
+            int to = 0;
+            for (int i = 0; i < size; i++) {
+                if (!array[i].unregistered) {
+                    target[to++] = array[i];
+                }
+            }
+            return new SubscriberList(target, to, 0);
+        }
+    }
+
+    /**
+     * 已解析的订阅方法
+     */
+    private static class SubscriberMethod {
+        private final Method method;
+        private final Class<?> eventType;
+        private final SubscriberInvoker invoker;
+
+        SubscriberMethod(Method method, Class<?> eventType, SubscriberInvoker invoker) {
+            this.method = method;
+            this.eventType = eventType;
+            this.invoker = invoker;
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.tianwj.observer.eventbus;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 环形缓冲区等待策略
+ * <p>
+ * 消费者等待新事件、发布者等待空位时使用
+ *
+ * @author tianwj
+ */
+public enum WaitStrategy {
+    /**
+     * 忙等，延迟最低，独占一个CPU核
+     */
+    BUSY_SPIN {
+        @Override
+        void idle() {
+            // spin
+        }
+    },
+
+    /**
+     * 让出CPU，延迟与CPU占用折中
+     */
+    YIELD {
+        @Override
+        void idle() {
+            Thread.yield();
+        }
+    },
+
+    /**
+     * 短暂挂起线程，CPU占用最低
+     */
+    PARK {
+        @Override
+        void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    private static final long PARK_NANOS = 1000L;
+
+    /**
+     * 条件未满足时调用一次
+     */
+    abstract void idle();
+}
@@ -0,0 +1,24 @@
+package com.tianwj.observer.typed;
+
+/**
+ * {@link BackpressureSubject} 中订阅者缓冲区已满时的处理策略
+ *
+ * @author tianwj
+ */
+public enum BackpressurePolicy {
+    /**
+     * 阻塞发布线程，直到该订阅者的缓冲区有空位或订阅被取消
+     */
+    BLOCK,
+
+    /**
+     * 丢弃该订阅者缓冲区中最旧的事件
+     */
+    DROP_OLDEST,
+
+    /**
+     * 取消该订阅者的订阅，并以 {@link java.util.concurrent.RejectedExecutionException} 回调其 onError；
+     * 发布线程和其他订阅者不受影响
+     */
+    CANCEL
+}
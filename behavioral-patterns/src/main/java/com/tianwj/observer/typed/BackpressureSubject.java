@@ -0,0 +1,333 @@
+package com.tianwj.observer.typed;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 支持背压的被观察者
+ * <p>
+ * 每个订阅者拥有独立的有界缓冲区和溢出策略，按订阅者request的数量在executor上串行投递，
+ * 慢订阅者只会填满自己的缓冲区，不会阻塞发布线程和其他订阅者（{@link BackpressurePolicy#BLOCK}除外）。
+ * <p>
+ * 同时实现 {@link TypedSubject}：注册的观察者包装为一个订阅者，拥有默认容量和策略的缓冲区，
+ * 观察者因此也获得了独立缓冲和背压，现有的 {@link com.tianwj.observer.Observer} 可以直接注册到 BackpressureSubject&lt;String&gt;。
+ * 观察者的update抛出异常时该观察者被取消注册
+ *
+ * @param <T> 事件类型
+ * @author tianwj
+ */
+public class BackpressureSubject<T> implements Flow.Publisher<T>, TypedSubject<T> {
+    @SuppressWarnings("unchecked")
+    private final ObserverArray<BufferedSubscription<T>> subscriptions =
+            new ObserverArray<>((BufferedSubscription<T>[]) new BufferedSubscription<?>[0]);
+    private final Executor executor;
+    private final int defaultCapacity;
+    private final BackpressurePolicy defaultPolicy;
+    private volatile boolean closed;
+
+    /**
+     * @param executor        投递执行器
+     * @param defaultCapacity 订阅者缓冲区默认容量
+     * @param defaultPolicy   缓冲区满时的默认策略
+     */
+    public BackpressureSubject(Executor executor, int defaultCapacity, BackpressurePolicy defaultPolicy) {
+        if (executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+        if (defaultPolicy == null) {
+            throw new NullPointerException("defaultPolicy is null");
+        }
+        if (defaultCapacity <= 0) {
+            throw new IllegalArgumentException("defaultCapacity must be positive: " + defaultCapacity);
+        }
+        this.executor = executor;
+        this.defaultCapacity = defaultCapacity;
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        subscribe(subscriber, defaultCapacity, defaultPolicy);
+    }
+
+    /**
+     * 以指定的缓冲区容量和溢出策略订阅
+     */
+    public void subscribe(Flow.Subscriber<? super T> subscriber, int capacity, BackpressurePolicy policy) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber is null");
+        }
+        if (policy == null) {
+            throw new NullPointerException("policy is null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        BufferedSubscription<T> subscription = new BufferedSubscription<>(this, subscriber, capacity, policy);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        subscriptions.add(subscription);
+    }
+
+    /**
+     * 以观察者身份订阅，使用默认的缓冲区容量和溢出策略，重复注册同一观察者无效
+     */
+    @Override
+    public void registerObserver(TypedObserver<? super T> observer) {
+        if (observer == null) {
+            throw new NullPointerException("registerObserver observer is null");
+        }
+        if (findObserver(observer) == null) {
+            subscribe(new ObserverSubscriber<>(observer));
+        }
+    }
+
+    @Override
+    public void removeObserver(TypedObserver<? super T> observer) {
+        if (observer == null) {
+            throw new NullPointerException("removeObserver observer is null");
+        }
+        BufferedSubscription<T> subscription = findObserver(observer);
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private BufferedSubscription<T> findObserver(TypedObserver<? super T> observer) {
+        for (BufferedSubscription<T> subscription : subscriptions.snapshot()) {
+            if (subscription.subscriber instanceof ObserverSubscriber
+                    && ((ObserverSubscriber<?>) subscription.subscriber).observer.equals(observer)) {
+                return subscription;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 向所有订阅者的缓冲区发布事件
+     *
+     * @param event 通知事件
+     */
+    @Override
+    public void notifyObserver(T event) {
+        if (event == null) {
+            throw new NullPointerException("event is null");
+        }
+        if (closed) {
+            throw new IllegalStateException("subject is closed");
+        }
+        for (BufferedSubscription<T> subscription : subscriptions.snapshot()) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * 关闭被观察者，订阅者消费完缓冲区中的事件后收到onComplete
+     */
+    public void close() {
+        closed = true;
+        for (BufferedSubscription<T> subscription : subscriptions.snapshot()) {
+            subscription.complete();
+            subscriptions.remove(subscription);
+        }
+    }
+
+    /**
+     * 观察者到订阅者的适配：不限制需求，由缓冲区容量和溢出策略控制内存
+     */
+    private static class ObserverSubscriber<T> implements Flow.Subscriber<T> {
+        private final TypedObserver<? super T> observer;
+
+        ObserverSubscriber(TypedObserver<? super T> observer) {
+            this.observer = observer;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T item) {
+            observer.update(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // 观察者没有错误回调，订阅已被取消
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    /**
+     * 单个订阅者的缓冲区与投递任务
+     * <p>
+     * 同一时刻最多只有一个投递任务在执行器上运行，保证订阅者回调串行
+     */
+    private static class BufferedSubscription<T> implements Flow.Subscription, Runnable {
+        /**
+         * BLOCK策略下检查订阅是否已取消的间隔
+         */
+        private static final long BLOCK_CHECK_MILLIS = 10;
+
+        private final BackpressureSubject<T> subject;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final BlockingQueue<T> queue;
+        private final BackpressurePolicy policy;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean completed;
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+
+        /**
+         * 是否已回调 onComplete 或 onError，之后不再发出任何信号
+         */
+        private volatile boolean terminated;
+
+        BufferedSubscription(BackpressureSubject<T> subject, Flow.Subscriber<? super T> subscriber,
+                             int capacity, BackpressurePolicy policy) {
+            this.subject = subject;
+            this.subscriber = subscriber;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.policy = policy;
+        }
+
+        void offer(T event) {
+            if (cancelled) {
+                return;
+            }
+            switch (policy) {
+                case BLOCK:
+                    try {
+                        while (!queue.offer(event, BLOCK_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                            if (cancelled) {
+                                return;
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("interrupted while waiting for buffer space", e);
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(event)) {
+                        queue.poll();
+                    }
+                    break;
+                case CANCEL:
+                default:
+                    // 订阅者跟不上，终止该订阅而不影响其他订阅者
+                    if (!queue.offer(event)) {
+                        fail(new RejectedExecutionException("buffer of " + subscriber + " is full"));
+                        return;
+                    }
+                    break;
+            }
+            schedule();
+        }
+
+        void complete() {
+            completed = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("request must be positive: " + n));
+                return;
+            }
+            long current;
+            long updated;
+            do {
+                current = demand.get();
+                updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!demand.compareAndSet(current, updated));
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subject.subscriptions.remove(this);
+            schedule();
+        }
+
+        private void fail(Throwable throwable) {
+            error = throwable;
+            cancel();
+        }
+
+        @Override
+        public void run() {
+            try {
+                drain();
+            } finally {
+                scheduled.set(false);
+                // 释放标记后重新检查，避免与发布线程、request的竞争丢失信号；
+                // 投递任务越过取消检查后才失败时，由这里重新调度以投递 onError
+                if (!terminated && (cancelled
+                        ? error != null
+                        : completed || !queue.isEmpty() && demand.get() > 0)) {
+                    schedule();
+                }
+            }
+        }
+
+        private void drain() {
+            if (terminated) {
+                queue.clear();
+                return;
+            }
+            while (!cancelled && demand.get() > 0) {
+                T event = queue.poll();
+                if (event == null) {
+                    break;
+                }
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+                try {
+                    subscriber.onNext(event);
+                } catch (Throwable t) {
+                    fail(t);
+                }
+            }
+            if (cancelled) {
+                queue.clear();
+                Throwable throwable = error;
+                if (throwable != null) {
+                    terminated = true;
+                    subscriber.onError(throwable);
+                }
+            } else if (completed && queue.isEmpty()) {
+                terminated = true;
+                cancelled = true;
+                subscriber.onComplete();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    subject.executor.execute(this);
+                } catch (RuntimeException e) {
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+    }
+}
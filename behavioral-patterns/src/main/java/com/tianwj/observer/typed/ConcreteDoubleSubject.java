@@ -0,0 +1,33 @@
+package com.tianwj.observer.typed;
+
+/**
+ * double类型被观察者实现，同步通知，全程不装箱
+ *
+ * @author tianwj
+ */
+public class ConcreteDoubleSubject implements DoubleSubject {
+    private final ObserverArray<DoubleObserver> observers = new ObserverArray<>(new DoubleObserver[0]);
+
+    @Override
+    public void registerObserver(DoubleObserver observer) {
+        if (observer == null) {
+            throw new NullPointerException("registerObserver observer is null");
+        }
+        observers.add(observer);
+    }
+
+    @Override
+    public void removeObserver(DoubleObserver observer) {
+        if (observer == null) {
+            throw new NullPointerException("removeObserver observer is null");
+        }
+        observers.remove(observer);
+    }
+
+    @Override
+    public void notifyObserver(double value) {
+        for (DoubleObserver observer : observers.snapshot()) {
+            observer.update(value);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.tianwj.observer.typed;
+
+/**
+ * long类型被观察者实现，同步通知，全程不装箱
+ *
+ * @author tianwj
+ */
+public class ConcreteLongSubject implements LongSubject {
+    private final ObserverArray<LongObserver> observers = new ObserverArray<>(new LongObserver[0]);
+
+    @Override
+    public void registerObserver(LongObserver observer) {
+        if (observer == null) {
+            throw new NullPointerException("registerObserver observer is null");
+        }
+        observers.add(observer);
+    }
+
+    @Override
+    public void removeObserver(LongObserver observer) {
+        if (observer == null) {
+            throw new NullPointerException("removeObserver observer is null");
+        }
+        observers.remove(observer);
+    }
+
+    @Override
+    public void notifyObserver(long value) {
+        for (LongObserver observer : observers.snapshot()) {
+            observer.update(value);
+        }
+    }
+}
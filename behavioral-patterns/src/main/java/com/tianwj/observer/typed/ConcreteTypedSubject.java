@@ -0,0 +1,66 @@
+package com.tianwj.observer.typed;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 泛型被观察者实现
+ *
+ * @param <T> 事件类型
+ * @author tianwj
+ */
+public class ConcreteTypedSubject<T> implements TypedSubject<T> {
+    @SuppressWarnings("unchecked")
+    private final ObserverArray<TypedObserver<? super T>> observers =
+            new ObserverArray<>((TypedObserver<? super T>[]) new TypedObserver<?>[0]);
+
+    /**
+     * 为空时在当前线程同步通知
+     */
+    private final Executor executor;
+
+    public ConcreteTypedSubject() {
+        this.executor = null;
+    }
+
+    /**
+     * 异步通知，每个观察者的update作为独立任务提交到executor
+     *
+     * @param executor 通知执行器
+     */
+    public ConcreteTypedSubject(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+        this.executor = executor;
+    }
+
+    @Override
+    public void registerObserver(TypedObserver<? super T> observer) {
+        if (observer == null) {
+            throw new NullPointerException("registerObserver observer is null");
+        }
+        observers.add(observer);
+    }
+
+    @Override
+    public void removeObserver(TypedObserver<? super T> observer) {
+        if (observer == null) {
+            throw new NullPointerException("removeObserver observer is null");
+        }
+        observers.remove(observer);
+    }
+
+    @Override
+    public void notifyObserver(T event) {
+        TypedObserver<? super T>[] snapshot = observers.snapshot();
+        if (executor == null) {
+            for (TypedObserver<? super T> observer : snapshot) {
+                observer.update(event);
+            }
+        } else {
+            for (TypedObserver<? super T> observer : snapshot) {
+                executor.execute(() -> observer.update(event));
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.tianwj.observer.typed;
+
+/**
+ * double类型观察者，用于数值推送，避免装箱
+ *
+ * @author tianwj
+ */
+@FunctionalInterface
+public interface DoubleObserver {
+    void update(double value);
+}
@@ -0,0 +1,14 @@
+package com.tianwj.observer.typed;
+
+/**
+ * double类型被观察者
+ *
+ * @author tianwj
+ */
+public interface DoubleSubject {
+    void registerObserver(DoubleObserver observer);
+
+    void removeObserver(DoubleObserver observer);
+
+    void notifyObserver(double value);
+}
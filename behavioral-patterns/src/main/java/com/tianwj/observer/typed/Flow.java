@@ -0,0 +1,52 @@
+package com.tianwj.observer.typed;
+
+/**
+ * 响应式流接口
+ * <p>
+ * 与JDK 9的{@code java.util.concurrent.Flow}保持相同的方法签名与语义，
+ * 工程编译级别为Java 8，升级后可直接替换为JDK接口
+ *
+ * @author tianwj
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * 发布者
+     *
+     * @param <T> 事件类型
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * 订阅者，所有回调串行执行
+     *
+     * @param <T> 事件类型
+     */
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * 订阅关系，订阅者通过request声明可以再接收多少个事件
+     */
+    public interface Subscription {
+        /**
+         * 增加需求数量，n必须大于0，否则以{@link IllegalArgumentException}回调onError
+         */
+        void request(long n);
+
+        void cancel();
+    }
+}
@@ -0,0 +1,14 @@
+package com.tianwj.observer.typed;
+
+/**
+ * long类型被观察者
+ *
+ * @author tianwj
+ */
+public interface LongSubject {
+    void registerObserver(LongObserver observer);
+
+    void removeObserver(LongObserver observer);
+
+    void notifyObserver(long value);
+}
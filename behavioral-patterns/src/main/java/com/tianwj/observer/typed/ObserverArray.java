@@ -0,0 +1,79 @@
+package com.tianwj.observer.typed;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 观察者的不可变数组快照
+ * <p>
+ * 注册、取消注册时复制数组并CAS替换，通知方直接遍历{@link #snapshot()}，不加锁也不产生新对象
+ *
+ * @param <O> 观察者类型
+ * @author tianwj
+ */
+final class ObserverArray<O> {
+    /**
+     * 空数组，同时决定快照数组的元素类型
+     */
+    private final O[] empty;
+
+    private final AtomicReference<O[]> observers;
+
+    ObserverArray(O[] empty) {
+        if (empty.length != 0) {
+            throw new IllegalArgumentException("empty array expected");
+        }
+        this.empty = empty;
+        this.observers = new AtomicReference<>(empty);
+    }
+
+    void add(O observer) {
+        while (true) {
+            O[] current = observers.get();
+            if (indexOf(current, observer) >= 0) {
+                return;
+            }
+            O[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = observer;
+            if (observers.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    void remove(O observer) {
+        while (true) {
+            O[] current = observers.get();
+            int index = indexOf(current, observer);
+            if (index < 0) {
+                return;
+            }
+            O[] updated;
+            if (current.length == 1) {
+                updated = empty;
+            } else {
+                updated = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            }
+            if (observers.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 当前快照，调用方只读不写
+     */
+    O[] snapshot() {
+        return observers.get();
+    }
+
+    private static <O> int indexOf(O[] array, O observer) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].equals(observer)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
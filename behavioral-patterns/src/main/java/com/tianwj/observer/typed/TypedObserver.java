@@ -0,0 +1,14 @@
+package com.tianwj.observer.typed;
+
+/**
+ * 泛型观察者接口
+ * <p>
+ * 直接接收类型化的事件，无需把消息序列化成字符串再解析
+ *
+ * @param <T> 事件类型
+ * @author tianwj
+ */
+@FunctionalInterface
+public interface TypedObserver<T> {
+    void update(T event);
+}
@@ -0,0 +1,30 @@
+package com.tianwj.observer.typed;
+
+/**
+ * 泛型被观察者接口
+ *
+ * @param <T> 事件类型
+ * @author tianwj
+ */
+public interface TypedSubject<T> {
+    /**
+     * 观察者注册方法
+     *
+     * @param observer 观察者对象
+     */
+    void registerObserver(TypedObserver<? super T> observer);
+
+    /**
+     * 观察者取消注册方法
+     *
+     * @param observer 观察者对象
+     */
+    void removeObserver(TypedObserver<? super T> observer);
+
+    /**
+     * 通知观察者接口
+     *
+     * @param event 通知事件
+     */
+    void notifyObserver(T event);
+}
@@ -0,0 +1,29 @@
+package com.tianwj.state.table;
+
+/**
+ * 表驱动状态机示例，与{@link com.tianwj.state.Client}中的A、B两个状态相同
+ *
+ * @author tianwj
+ * @date 2026/10/18 10:12
+ */
+public class Client {
+
+    enum DemoState {
+        A, B
+    }
+
+    enum DemoEvent {
+        ACTION
+    }
+
+    public static void main(String[] args) {
+        StateMachine<DemoState, DemoEvent, Void> machine = new StateMachine<DemoState, DemoEvent, Void>(DemoState.class, DemoEvent.class)
+                .addTransition(DemoState.A, DemoEvent.ACTION, DemoState.B,
+                        null, (from, event, to, context) -> System.out.println(from + " -> " + to))
+                .addTransition(DemoState.B, DemoEvent.ACTION, DemoState.A,
+                        null, (from, event, to, context) -> System.out.println(from + " -> " + to));
+        TableStateContext<DemoState, DemoEvent, Void> stateContext = new TableStateContext<>(machine, DemoState.A, null);
+        stateContext.fire(DemoEvent.ACTION);
+        stateContext.fire(DemoEvent.ACTION);
+    }
+}
@@ -0,0 +1,75 @@
+package com.tianwj.state.table;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 线程安全的表驱动状态上下文
+ * <p>
+ * 多个线程可同时触发事件：先按当前状态计算守卫和目标状态，再CAS切换，冲突时基于新状态重试。
+ * 动作在CAS成功后执行，每次成功的转移只执行一次，因此守卫可能被重复计算，应当无副作用；
+ * 并发转移的动作之间不保证顺序，需要严格按事件顺序执行动作时使用{@link SerializedStateContext}
+ *
+ * @param <S> 状态类型
+ * @param <E> 事件类型
+ * @param <C> 上下文类型
+ * @author tianwj
+ * @date 2026/10/18 11:05
+ */
+public class ConcurrentStateContext<S extends Enum<S>, E extends Enum<E>, C> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentStateContext, Enum> STATE =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentStateContext.class, Enum.class, "state");
+
+    private final StateMachine<S, E, C> machine;
+    private final C context;
+
+    /**
+     * 当前状态，通过字段更新器CAS，避免每个实例额外持有一个AtomicReference
+     */
+    private volatile S state;
+
+    public ConcurrentStateContext(StateMachine<S, E, C> machine, S initialState, C context) {
+        if (machine == null) {
+            throw new NullPointerException("machine is null");
+        }
+        if (initialState == null) {
+            throw new NullPointerException("initialState is null");
+        }
+        this.machine = machine;
+        this.state = initialState;
+        this.context = context;
+    }
+
+    /**
+     * 触发事件
+     *
+     * @return 是否执行了转移（包括目标状态与当前状态相同的自转移）
+     */
+    public boolean fire(E event) {
+        while (true) {
+            S current = state;
+            Transition<S, E, C> transition = machine.resolve(current, event, context);
+            if (transition == null) {
+                return false;
+            }
+            if (STATE.compareAndSet(this, current, transition.to)) {
+                if (transition.action != null) {
+                    transition.action.execute(current, event, transition.to, context);
+                }
+                return true;
+            }
+        }
+    }
+
+    public S getState() {
+        return state;
+    }
+
+    public StateMachine<S, E, C> getMachine() {
+        return machine;
+    }
+
+    public C getContext() {
+        return context;
+    }
+}
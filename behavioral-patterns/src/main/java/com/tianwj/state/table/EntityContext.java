@@ -0,0 +1,36 @@
+package com.tianwj.state.table;
+
+/**
+ * 分片运行时传给守卫和动作的上下文
+ * <p>
+ * 每个分片复用同一个实例，只在回调期间有效，不要在回调之外持有
+ *
+ * @author tianwj
+ * @date 2026/10/18 11:40
+ */
+public final class EntityContext {
+    private final int shard;
+    private int entityId;
+
+    EntityContext(int shard) {
+        this.shard = shard;
+    }
+
+    void setEntityId(int entityId) {
+        this.entityId = entityId;
+    }
+
+    /**
+     * 当前处理的实体编号
+     */
+    public int getEntityId() {
+        return entityId;
+    }
+
+    /**
+     * 当前实体所在的分片
+     */
+    public int getShard() {
+        return shard;
+    }
+}
@@ -0,0 +1,158 @@
+package com.tianwj.state.table;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 串行化的表驱动状态上下文
+ * <p>
+ * 每个上下文一个无锁事件队列，任意线程投递事件，同一时刻最多只有一个执行器任务按投递顺序消费，
+ * 守卫和动作因此串行执行且不需要加锁；不同上下文之间没有共享锁，大量实例可以共用一个线程池
+ *
+ * @param <S> 状态类型
+ * @param <E> 事件类型
+ * @param <C> 上下文类型
+ * @author tianwj
+ * @date 2026/10/18 11:05
+ */
+public class SerializedStateContext<S extends Enum<S>, E extends Enum<E>, C> {
+    private final StateMachine<S, E, C> machine;
+    private final C context;
+    private final Executor executor;
+
+    /**
+     * 单次任务最多处理的事件数，处理完后重新提交，避免一个繁忙的上下文长期占用线程
+     */
+    private final int batchSize;
+
+    /**
+     * 待处理事件，每次投递包装为独立的元素，执行器拒绝时按引用移除本次投递的元素，不会误删相同的枚举事件
+     */
+    private final Deque<Fired<E>> queue = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 已投递未处理的事件数
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * 是否已有消费任务提交到执行器
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private final Runnable drainTask = this::drain;
+
+    /**
+     * 当前状态，只由消费任务写入
+     */
+    private volatile S state;
+
+    public SerializedStateContext(StateMachine<S, E, C> machine, S initialState, C context, Executor executor, int batchSize) {
+        if (machine == null) {
+            throw new NullPointerException("machine is null");
+        }
+        if (initialState == null) {
+            throw new NullPointerException("initialState is null");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.machine = machine;
+        this.state = initialState;
+        this.context = context;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 投递事件，异步执行转移
+     * <p>
+     * 执行器拒绝消费任务时移除该事件并抛出执行器的异常，上下文仍可继续使用
+     */
+    public void fire(E event) {
+        if (event == null) {
+            throw new NullPointerException("event is null");
+        }
+        Fired<E> fired = new Fired<>(event);
+        queue.offer(fired);
+        pending.incrementAndGet();
+        try {
+            schedule();
+        } catch (RuntimeException e) {
+            // 本次投递的元素靠近队尾，从队尾开始查找
+            if (queue.removeLastOccurrence(fired)) {
+                pending.decrementAndGet();
+            }
+            throw e;
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int processed = 0; processed < batchSize; processed++) {
+                Fired<E> fired = queue.poll();
+                if (fired == null) {
+                    break;
+                }
+                try {
+                    state = machine.fire(state, fired.event, context);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // 释放标记后重新检查，避免与投递线程的竞争丢失事件；处理满一批时也在这里重新提交
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(drainTask);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    public S getState() {
+        return state;
+    }
+
+    /**
+     * 已投递尚未处理的事件数
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public StateMachine<S, E, C> getMachine() {
+        return machine;
+    }
+
+    public C getContext() {
+        return context;
+    }
+
+    /**
+     * 一次投递，按引用比较
+     */
+    private static final class Fired<E> {
+        private final E event;
+
+        Fired(E event) {
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.tianwj.state.table;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 分片状态机运行时
+ * <p>
+ * 大量实体共用一个{@link StateMachine}，每个实体的当前状态只占状态数组中的一个字节（按实体编号索引），
+ * 不再为每个实体创建上下文和状态对象。实体编号按连续区间划分到各分片，
+ * 一批事件由各分片并行处理，每个分片只处理落在自己区间内的事件，同一实体的事件保持提交顺序。
+ * 守卫和动作仍由状态机中定义的转移执行，通过{@link EntityContext}获取实体编号
+ *
+ * @param <S> 状态类型，最多256个状态
+ * @param <E> 事件类型
+ * @author tianwj
+ * @date 2026/10/18 11:40
+ */
+public class ShardedStateRuntime<S extends Enum<S>, E extends Enum<E>> {
+    private static final int MAX_STATES = 256;
+
+    private final StateMachine<S, E, EntityContext> machine;
+    private final Executor executor;
+
+    /**
+     * 实体当前状态序号，按无符号字节读取
+     */
+    private final byte[] states;
+
+    /**
+     * 每个分片负责的实体数，最后一个分片可能不满
+     */
+    private final int shardSize;
+    private final EntityContext[] contexts;
+
+    /**
+     * 按分片分组后的批次下标，分片i的下标位于[shardOffsets[i], shardOffsets[i + 1])，批次间复用
+     */
+    private int[] partitioned = new int[0];
+    private final int[] shardOffsets;
+
+    /**
+     * @param machine      共享的状态机
+     * @param entityCount  实体数量，实体编号为[0, entityCount)
+     * @param initialState 所有实体的初始状态
+     * @param shardCount   分片数量，通常与执行器线程数相同
+     * @param executor     分片执行器
+     */
+    public ShardedStateRuntime(StateMachine<S, E, EntityContext> machine, int entityCount, S initialState,
+                               int shardCount, Executor executor) {
+        if (machine == null) {
+            throw new NullPointerException("machine is null");
+        }
+        if (initialState == null) {
+            throw new NullPointerException("initialState is null");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+        if (machine.getStateCount() > MAX_STATES) {
+            throw new IllegalArgumentException("at most " + MAX_STATES + " states supported: " + machine.getStateCount());
+        }
+        if (entityCount <= 0) {
+            throw new IllegalArgumentException("entityCount must be positive: " + entityCount);
+        }
+        if (shardCount <= 0 || shardCount > entityCount) {
+            throw new IllegalArgumentException("shardCount must be in [1, entityCount]: " + shardCount);
+        }
+        this.machine = machine;
+        this.executor = executor;
+        this.states = new byte[entityCount];
+        if (initialState.ordinal() != 0) {
+            Arrays.fill(states, (byte) initialState.ordinal());
+        }
+        this.shardSize = (entityCount + shardCount - 1) / shardCount;
+        int shards = (entityCount + shardSize - 1) / shardSize;
+        this.contexts = new EntityContext[shards];
+        this.shardOffsets = new int[shards + 1];
+        for (int i = 0; i < shards; i++) {
+            contexts[i] = new EntityContext(i);
+        }
+    }
+
+    /**
+     * 并行处理一批事件，所有分片处理完后返回
+     * <p>
+     * 先按实体编号把批次一次性分组到各分片（保持同一实体的事件顺序），再由各分片并行处理自己的分组。
+     * 批次之间串行执行；某个分片的动作抛出异常时其他分片照常完成，异常在返回前抛出
+     *
+     * @param entityIds 事件对应的实体编号，必须在[0, entityCount)内，否则整个批次不处理
+     * @param events    事件
+     * @param size      前size个元素有效
+     */
+    public synchronized void dispatch(int[] entityIds, E[] events, int size) {
+        if (size < 0 || size > entityIds.length || size > events.length) {
+            throw new IllegalArgumentException("size out of range: " + size);
+        }
+        partition(entityIds, size);
+        if (contexts.length == 1) {
+            processShard(0, entityIds, events);
+            return;
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[contexts.length];
+        for (int i = 0; i < contexts.length; i++) {
+            int shard = i;
+            futures[i] = CompletableFuture.runAsync(() -> processShard(shard, entityIds, events), executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 计数排序：统计各分片事件数得到偏移，再按批次顺序写入下标，同一分片内保持原顺序
+     */
+    private void partition(int[] entityIds, int size) {
+        Arrays.fill(shardOffsets, 0);
+        for (int i = 0; i < size; i++) {
+            shardOffsets[checkEntityId(entityIds[i]) / shardSize + 1]++;
+        }
+        for (int i = 1; i < shardOffsets.length; i++) {
+            shardOffsets[i] += shardOffsets[i - 1];
+        }
+        if (partitioned.length < size) {
+            partitioned = new int[size];
+        }
+        // 借用下一个分片的起始偏移作为写指针，写完后恢复
+        for (int i = 0; i < size; i++) {
+            int shard = entityIds[i] / shardSize;
+            partitioned[shardOffsets[shard]++] = i;
+        }
+        for (int i = shardOffsets.length - 1; i > 0; i--) {
+            shardOffsets[i] = shardOffsets[i - 1];
+        }
+        shardOffsets[0] = 0;
+    }
+
+    private void processShard(int shard, int[] entityIds, E[] events) {
+        EntityContext context = contexts[shard];
+        for (int i = shardOffsets[shard], end = shardOffsets[shard + 1]; i < end; i++) {
+            int index = partitioned[i];
+            int entityId = entityIds[index];
+            context.setEntityId(entityId);
+            int current = states[entityId] & 0xFF;
+            int next = machine.fire(current, events[index].ordinal(), context);
+            if (next != current) {
+                states[entityId] = (byte) next;
+            }
+        }
+    }
+
+    private int checkEntityId(int entityId) {
+        if (entityId < 0 || entityId >= states.length) {
+            throw new IllegalArgumentException("entityId out of range [0, " + states.length + "): " + entityId);
+        }
+        return entityId;
+    }
+
+    /**
+     * 实体当前状态，与正在执行的批次并发读取时可能读到旧值
+     */
+    public S getState(int entityId) {
+        return machine.stateOf(states[checkEntityId(entityId)] & 0xFF);
+    }
+
+    /**
+     * 直接设置实体状态，用于恢复或初始化，不能与批次并发调用
+     */
+    public synchronized void setState(int entityId, S state) {
+        states[checkEntityId(entityId)] = (byte) state.ordinal();
+    }
+
+    public int getEntityCount() {
+        return states.length;
+    }
+
+    public int getShardCount() {
+        return contexts.length;
+    }
+}
@@ -0,0 +1,133 @@
+package com.tianwj.state.table;
+
+/**
+ * 表驱动状态机
+ * <p>
+ * 状态与事件都是枚举，枚举常量即共享的无状态单例；转移表按[状态序号][事件序号]预先计算，
+ * 触发事件只是一次数组查找加守卫、动作回调，不创建任何对象。
+ * 状态机本身不保存当前状态，当前状态由调用方（如{@link TableStateContext}）持有，同一个状态机可被任意多个实体共享。
+ * <p>
+ * 转移需在并发使用前配置完成
+ *
+ * @param <S> 状态类型
+ * @param <E> 事件类型
+ * @param <C> 上下文类型，传给守卫和动作
+ * @author tianwj
+ * @date 2026/10/18 10:12
+ */
+public class StateMachine<S extends Enum<S>, E extends Enum<E>, C> {
+    private final S[] states;
+    private final E[] events;
+
+    /**
+     * 转移表，未配置的位置为null
+     */
+    private final Transition<S, E, C>[][] table;
+
+    @SuppressWarnings("unchecked")
+    public StateMachine(Class<S> stateType, Class<E> eventType) {
+        if (stateType == null) {
+            throw new NullPointerException("stateType is null");
+        }
+        if (eventType == null) {
+            throw new NullPointerException("eventType is null");
+        }
+        this.states = stateType.getEnumConstants();
+        this.events = eventType.getEnumConstants();
+        this.table = (Transition<S, E, C>[][]) new Transition<?, ?, ?>[states.length][events.length];
+    }
+
+    /**
+     * 添加无守卫、无动作的转移
+     */
+    public StateMachine<S, E, C> addTransition(S from, E event, S to) {
+        return addTransition(from, event, to, null, null);
+    }
+
+    /**
+     * 添加转移
+     *
+     * @param from   源状态
+     * @param event  事件
+     * @param to     目标状态
+     * @param guard  守卫，可为null
+     * @param action 动作，可为null
+     */
+    public StateMachine<S, E, C> addTransition(S from, E event, S to,
+                                               TransitionGuard<S, E, C> guard, TransitionAction<S, E, C> action) {
+        if (from == null || event == null || to == null) {
+            throw new NullPointerException("from, event and to must not be null");
+        }
+        if (table[from.ordinal()][event.ordinal()] != null) {
+            throw new IllegalArgumentException("transition already defined: " + from + " --" + event + "-->");
+        }
+        table[from.ordinal()][event.ordinal()] = new Transition<>(to, guard, action);
+        return this;
+    }
+
+    /**
+     * 当前状态下是否配置了该事件的转移（不计算守卫）
+     */
+    public boolean canFire(S current, E event) {
+        return table[current.ordinal()][event.ordinal()] != null;
+    }
+
+    /**
+     * 触发事件
+     *
+     * @return 转移后的状态；未配置转移或守卫拒绝时返回当前状态
+     */
+    public S fire(S current, E event, C context) {
+        return states[fire(current.ordinal(), event.ordinal(), context)];
+    }
+
+    /**
+     * 按序号触发事件，供以数组保存状态序号的调用方使用
+     *
+     * @return 转移后的状态序号；未配置转移或守卫拒绝时返回当前状态序号
+     */
+    public int fire(int stateOrdinal, int eventOrdinal, C context) {
+        Transition<S, E, C> transition = table[stateOrdinal][eventOrdinal];
+        if (transition == null) {
+            return stateOrdinal;
+        }
+        S from = states[stateOrdinal];
+        E event = events[eventOrdinal];
+        if (transition.guard != null && !transition.guard.test(from, event, context)) {
+            return stateOrdinal;
+        }
+        if (transition.action != null) {
+            transition.action.execute(from, event, transition.to, context);
+        }
+        return transition.to.ordinal();
+    }
+
+    /**
+     * 查找转移并计算守卫，不执行动作
+     *
+     * @return 可以执行的转移；未配置转移或守卫拒绝时返回null
+     */
+    Transition<S, E, C> resolve(S current, E event, C context) {
+        Transition<S, E, C> transition = table[current.ordinal()][event.ordinal()];
+        if (transition == null || transition.guard != null && !transition.guard.test(current, event, context)) {
+            return null;
+        }
+        return transition;
+    }
+
+    public S stateOf(int ordinal) {
+        return states[ordinal];
+    }
+
+    public E eventOf(int ordinal) {
+        return events[ordinal];
+    }
+
+    public int getStateCount() {
+        return states.length;
+    }
+
+    public int getEventCount() {
+        return events.length;
+    }
+}
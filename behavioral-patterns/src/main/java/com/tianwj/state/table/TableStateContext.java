@@ -0,0 +1,64 @@
+package com.tianwj.state.table;
+
+/**
+ * 表驱动状态上下文
+ * <p>
+ * 只保存当前状态的引用，转移逻辑全部委托给共享的{@link StateMachine}，非线程安全
+ *
+ * @param <S> 状态类型
+ * @param <E> 事件类型
+ * @param <C> 上下文类型
+ * @author tianwj
+ * @date 2026/10/18 10:12
+ */
+public class TableStateContext<S extends Enum<S>, E extends Enum<E>, C> {
+    private final StateMachine<S, E, C> machine;
+    private final C context;
+
+    /**
+     * 当前状态
+     */
+    private S state;
+
+    public TableStateContext(StateMachine<S, E, C> machine, S initialState, C context) {
+        if (machine == null) {
+            throw new NullPointerException("machine is null");
+        }
+        if (initialState == null) {
+            throw new NullPointerException("initialState is null");
+        }
+        this.machine = machine;
+        this.state = initialState;
+        this.context = context;
+    }
+
+    /**
+     * 触发事件
+     *
+     * @return 是否执行了转移（包括目标状态与当前状态相同的自转移）
+     */
+    public boolean fire(E event) {
+        S current = state;
+        Transition<S, E, C> transition = machine.resolve(current, event, context);
+        if (transition == null) {
+            return false;
+        }
+        if (transition.action != null) {
+            transition.action.execute(current, event, transition.to, context);
+        }
+        state = transition.to;
+        return true;
+    }
+
+    public S getState() {
+        return state;
+    }
+
+    public StateMachine<S, E, C> getMachine() {
+        return machine;
+    }
+
+    public C getContext() {
+        return context;
+    }
+}
@@ -0,0 +1,19 @@
+package com.tianwj.state.table;
+
+/**
+ * 转移表中的一项
+ *
+ * @author tianwj
+ * @date 2026/10/18 10:12
+ */
+final class Transition<S extends Enum<S>, E extends Enum<E>, C> {
+    final S to;
+    final TransitionGuard<S, E, C> guard;
+    final TransitionAction<S, E, C> action;
+
+    Transition(S to, TransitionGuard<S, E, C> guard, TransitionAction<S, E, C> action) {
+        this.to = to;
+        this.guard = guard;
+        this.action = action;
+    }
+}
@@ -0,0 +1,16 @@
+package com.tianwj.state.table;
+
+/**
+ * 状态转移动作，在守卫通过后、状态切换前执行
+ *
+ * @param <S> 状态类型
+ * @param <E> 事件类型
+ * @param <C> 上下文类型
+ * @author tianwj
+ * @date 2026/10/18 10:12
+ */
+@FunctionalInterface
+public interface TransitionAction<S extends Enum<S>, E extends Enum<E>, C> {
+
+    void execute(S from, E event, S to, C context);
+}
@@ -0,0 +1,16 @@
+package com.tianwj.state.table;
+
+/**
+ * 状态转移守卫，返回false时拒绝转移，状态保持不变
+ *
+ * @param <S> 状态类型
+ * @param <E> 事件类型
+ * @param <C> 上下文类型
+ * @author tianwj
+ * @date 2026/10/18 10:12
+ */
+@FunctionalInterface
+public interface TransitionGuard<S extends Enum<S>, E extends Enum<E>, C> {
+
+    boolean test(S from, E event, C context);
+}
@@ -0,0 +1,145 @@
+package com.tianwj.chainOfResponsibility;
+
+import com.tianwj.chainOfResponsibility.array.HandlerChain;
+import com.tianwj.chainOfResponsibility.array.IHandler;
+import com.tianwj.chainOfResponsibility.linkedList.BaseHandler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 处理器链指标测试
+ *
+ * @author tianwj
+ */
+public class HandlerChainMetricsTest {
+    private List<HandlerTrace> traces;
+
+    @Before
+    public void setUp() {
+        traces = new ArrayList<>();
+    }
+
+    @Test
+    public void arrayChainCountsCallsAndShortCircuits() {
+        HandlerChainMetrics metrics = new HandlerChainMetrics();
+        IHandler pass = new FixedHandler(false);
+        IHandler stop = new FixedHandler(true);
+        IHandler unreached = new FixedHandler(false);
+        HandlerChain chain = new HandlerChain(metrics);
+        chain.addHandler(pass);
+        chain.addHandler(stop);
+        chain.addHandler(unreached);
+
+        chain.handleConditional();
+        chain.compile().handleConditional();
+        chain.handleAll();
+
+        assertEquals(3, metrics.stats(pass).getCalls());
+        assertEquals(0, metrics.stats(pass).getShortCircuits());
+        assertEquals(3, metrics.stats(stop).getCalls());
+        assertEquals(2, metrics.stats(stop).getShortCircuits());
+        assertEquals(1, metrics.stats(unreached).getCalls());
+        assertEquals(3, metrics.stats(stop).getLatency().getCount());
+    }
+
+    @Test
+    public void tracesAreSampled() {
+        HandlerChainMetrics metrics = new HandlerChainMetrics(2, traces::add);
+        IHandler pass = new FixedHandler(false);
+        IHandler stop = new FixedHandler(true);
+        HandlerChain chain = new HandlerChain(metrics);
+        chain.addHandler(pass);
+        chain.addHandler(stop);
+        for (int i = 0; i < 4; i++) {
+            chain.handleConditional();
+        }
+
+        assertEquals(2, traces.size());
+        List<HandlerTrace.Entry> entries = traces.get(0).getEntries();
+        assertEquals(Arrays.asList(pass, stop), Arrays.asList(entries.get(0).getHandler(), entries.get(1).getHandler()));
+        assertTrue(entries.get(1).isShortCircuit());
+    }
+
+    @Test
+    public void linkedListChainRecordsExclusiveTime() {
+        HandlerChainMetrics metrics = new HandlerChainMetrics(1, traces::add);
+        LinkedHandler outer = new LinkedHandler(0, true);
+        LinkedHandler slow = new LinkedHandler(30, false);
+        LinkedHandler unreached = new LinkedHandler(0, true);
+        com.tianwj.chainOfResponsibility.linkedList.HandlerChain chain = new com.tianwj.chainOfResponsibility.linkedList.HandlerChain(metrics);
+        chain.addHandler(outer);
+        chain.addHandler(slow);
+        chain.addHandler(unreached);
+
+        chain.handle();
+
+        assertEquals(1, traces.size());
+        // 轨迹按处理器完成的先后顺序排列，内层处理器先完成
+        List<HandlerTrace.Entry> entries = traces.get(0).getEntries();
+        assertEquals(2, entries.size());
+        HandlerTrace.Entry slowEntry = entries.get(0);
+        HandlerTrace.Entry outerEntry = entries.get(1);
+        assertEquals(slow, slowEntry.getHandler());
+        assertTrue(slowEntry.isShortCircuit());
+        assertTrue(slowEntry.getNanos() >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertEquals(outer, outerEntry.getHandler());
+        assertTrue(outerEntry.getNanos() < TimeUnit.MILLISECONDS.toNanos(30));
+        assertEquals(0, metrics.stats(unreached).getCalls());
+    }
+
+    @Test
+    public void zeroSampleRateDoesNotTrace() {
+        HandlerChainMetrics metrics = new HandlerChainMetrics();
+        assertNull(metrics.startTrace());
+    }
+
+    static class FixedHandler implements IHandler {
+        private final boolean handles;
+
+        FixedHandler(boolean handles) {
+            this.handles = handles;
+        }
+
+        @Override
+        public void handleAll() {
+        }
+
+        @Override
+        public boolean handleConditional() {
+            return handles;
+        }
+    }
+
+    static class LinkedHandler extends BaseHandler {
+        private final long sleepMillis;
+        private final boolean passOn;
+
+        LinkedHandler(long sleepMillis, boolean passOn) {
+            this.sleepMillis = sleepMillis;
+            this.passOn = passOn;
+        }
+
+        @Override
+        public void handle() {
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (passOn && handler != null) {
+                handler.handle();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.tianwj.chainOfResponsibility.array;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 自适应处理器链测试
+ *
+ * @author tianwj
+ */
+public class AdaptiveHandlerChainTest {
+    private final IHandler miss = new FixedHandler(false);
+    private final IHandler hit = new FixedHandler(true);
+    private final IHandler barrier = new OrderSensitiveHandler();
+
+    @Test
+    public void frequentlyHittingHandlerMovesFirst() {
+        AdaptiveHandlerChain chain = adaptive(10, miss, hit);
+        handle(chain, 9);
+        assertEquals(Arrays.asList(miss, hit), chain.getOrder());
+
+        handle(chain, 1);
+
+        assertEquals(Arrays.asList(hit, miss), chain.getOrder());
+        assertEquals(10, chain.getStats(miss).getCalls());
+        assertEquals(0, chain.getStats(miss).getHits());
+        assertEquals(10, chain.getStats(hit).getHits());
+        assertEquals(1.0, chain.getStats(hit).getHitRate(), 0);
+    }
+
+    @Test
+    public void handlersDoNotCrossOrderSensitiveHandlers() {
+        AdaptiveHandlerChain chain = adaptive(5, miss, barrier, hit);
+        handle(chain, 5);
+
+        assertEquals(Arrays.asList(miss, barrier, hit), chain.getOrder());
+    }
+
+    @Test
+    public void handlersReorderWithinSegmentAfterBarrier() {
+        AdaptiveHandlerChain chain = adaptive(5, barrier, miss, hit);
+        handle(chain, 5);
+
+        assertEquals(Arrays.asList(barrier, hit, miss), chain.getOrder());
+        // 重新排序后命中的处理器先执行，不再调用未命中的处理器
+        handle(chain, 1);
+        assertEquals(5, chain.getStats(miss).getCalls());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reorderIntervalMustBePositive() {
+        new HandlerChain().adaptive(0);
+    }
+
+    private static AdaptiveHandlerChain adaptive(int reorderInterval, IHandler... handlers) {
+        HandlerChain chain = new HandlerChain();
+        for (IHandler handler : handlers) {
+            chain.addHandler(handler);
+        }
+        return chain.adaptive(reorderInterval);
+    }
+
+    private static void handle(AdaptiveHandlerChain chain, int requests) {
+        for (int i = 0; i < requests; i++) {
+            chain.handleConditional();
+        }
+    }
+
+    static class FixedHandler implements IHandler {
+        private final boolean handles;
+
+        FixedHandler(boolean handles) {
+            this.handles = handles;
+        }
+
+        @Override
+        public void handleAll() {
+        }
+
+        @Override
+        public boolean handleConditional() {
+            return handles;
+        }
+    }
+
+    static class OrderSensitiveHandler implements IHandler {
+        @Override
+        public void handleAll() {
+        }
+
+        @Override
+        public boolean handleConditional() {
+            return false;
+        }
+
+        @Override
+        public boolean isOrderSensitive() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.tianwj.chainOfResponsibility.array;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 编译后的处理器链测试
+ *
+ * @author tianwj
+ */
+public class CompiledHandlerChainTest {
+    private List<String> order;
+
+    @Before
+    public void setUp() {
+        order = new ArrayList<>();
+    }
+
+    @Test
+    public void handleAllCallsEveryHandlerInOrder() {
+        HandlerChain chain = new HandlerChain();
+        chain.addHandler(new FirstHandler(order));
+        chain.addHandler(new SecondHandler(order));
+        chain.addHandler(new ThirdHandler(order, false));
+        chain.addHandler(new FirstHandler(order));
+
+        chain.compile().handleAll();
+
+        assertEquals(Arrays.asList("first", "second", "third", "first"), order);
+    }
+
+    @Test
+    public void handleConditionalReportsWhetherRequestWasHandled() {
+        HandlerChain handled = new HandlerChain();
+        handled.addHandler(new FirstHandler(order));
+        handled.addHandler(new ThirdHandler(order, true));
+        handled.addHandler(new SecondHandler(order));
+        HandlerChain unhandled = new HandlerChain();
+        unhandled.addHandler(new FirstHandler(order));
+
+        assertTrue(handled.compile().handleConditional());
+        assertEquals(Arrays.asList("first", "third"), order);
+        assertFalse(unhandled.compile().handleConditional());
+    }
+
+    @Test
+    public void compiledChainIgnoresLaterChanges() {
+        HandlerChain chain = new HandlerChain();
+        chain.addHandler(new FirstHandler(order));
+        CompiledHandlerChain compiled = chain.compile();
+        chain.addHandler(new SecondHandler(order));
+
+        compiled.handleAll();
+
+        assertEquals(1, compiled.size());
+        assertEquals(Collections.singletonList("first"), order);
+    }
+
+    @Test
+    public void emptyChainHandlesNothing() {
+        CompiledHandlerChain compiled = new HandlerChain().compile();
+        compiled.handleAll();
+
+        assertEquals(0, compiled.size());
+        assertFalse(compiled.handleConditional());
+        assertEquals(3, compiled.handleConditional(new Object[3], 3));
+    }
+
+    static class FirstHandler implements IHandler {
+        private final List<String> order;
+
+        FirstHandler(List<String> order) {
+            this.order = order;
+        }
+
+        @Override
+        public void handleAll() {
+            order.add("first");
+        }
+
+        @Override
+        public boolean handleConditional() {
+            order.add("first");
+            return false;
+        }
+    }
+
+    static class SecondHandler implements IHandler {
+        private final List<String> order;
+
+        SecondHandler(List<String> order) {
+            this.order = order;
+        }
+
+        @Override
+        public void handleAll() {
+            order.add("second");
+        }
+
+        @Override
+        public boolean handleConditional() {
+            order.add("second");
+            return false;
+        }
+    }
+
+    static class ThirdHandler implements IHandler {
+        private final List<String> order;
+        private final boolean handles;
+
+        ThirdHandler(List<String> order, boolean handles) {
+            this.order = order;
+            this.handles = handles;
+        }
+
+        @Override
+        public void handleAll() {
+            order.add("third");
+        }
+
+        @Override
+        public boolean handleConditional() {
+            order.add("third");
+            return handles;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.tianwj.chainOfResponsibility.array;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 数组处理器链测试
+ *
+ * @author tianwj
+ */
+public class HandlerChainTest {
+    private ExecutorService executor;
+    private List<String> order;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        order = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void sequentialHandlerWithDependenciesWaitsForPreviousSequentialHandler() {
+        HandlerChain chain = new HandlerChain();
+        chain.addHandler(new SlowSequentialHandler(order));
+        chain.addHandler(new IndependentHandler(order));
+        chain.addHandler(new DependentSequentialHandler(order));
+
+        chain.handleAllParallel(executor);
+
+        // 独立处理器先完成，声明依赖的非独立处理器等待依赖和前一个非独立处理器
+        assertEquals(Arrays.asList("independent", "slow", "dependent"), order);
+    }
+
+    @Test
+    public void independentHandlersRunConcurrently() {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        HandlerChain chain = new HandlerChain();
+        chain.addHandler(new BarrierHandler(barrier, order, "first"));
+        chain.addHandler(new BarrierHandler(barrier, order, "second"));
+
+        chain.handleAllParallel(executor);
+
+        assertEquals(2, order.size());
+    }
+
+    @Test
+    public void compiledChainStopsAtFirstHandlingHandler() {
+        HandlerChain chain = new HandlerChain();
+        chain.addHandler(new ConditionalHandler(order, "a", false));
+        chain.addHandler(new ConditionalHandler(order, "b", true));
+        chain.addHandler(new ConditionalHandler(order, "c", true));
+
+        chain.compile().handleConditional();
+
+        assertEquals(Arrays.asList("a", "b"), order);
+    }
+
+    @Test
+    public void batchHandleAllPassesWholeBatchToEachHandler() {
+        BatchHandler first = new BatchHandler();
+        BatchHandler second = new BatchHandler();
+        HandlerChain chain = new HandlerChain();
+        chain.addHandler(first);
+        chain.addHandler(second);
+
+        chain.handleAll(new Object[]{1, 2, 3, null, null}, 3);
+
+        assertEquals(Collections.singletonList(3), first.sizes);
+        assertEquals(Collections.singletonList(3), second.sizes);
+    }
+
+    @Test
+    public void batchHandleConditionalPassesOnlyUnhandledItems() {
+        for (boolean compiled : new boolean[]{false, true}) {
+            BatchHandler last = new BatchHandler();
+            HandlerChain chain = new HandlerChain();
+            chain.addHandler(new EvenHandler());
+            chain.addHandler(last);
+            Object[] items = {1, 2, 3, 4, 5, 6};
+
+            int remaining = compiled ? chain.compile().handleConditional(items, 6) : chain.handleConditional(items, 6);
+
+            assertEquals(3, remaining);
+            assertEquals(Arrays.asList(1, 3, 5), Arrays.asList(items).subList(0, remaining));
+            assertEquals(Collections.singletonList(3), last.sizes);
+        }
+    }
+
+    @Test
+    public void batchStopsOnceEveryItemIsHandled() {
+        BatchHandler last = new BatchHandler();
+        HandlerChain chain = new HandlerChain();
+        chain.addHandler(new ConditionalHandler(order, "a", true));
+        chain.addHandler(last);
+
+        assertEquals(0, chain.handleConditional(new Object[]{1, 2}, 2));
+        assertEquals(Arrays.asList("a", "a"), order);
+        assertTrue(last.sizes.isEmpty());
+    }
+
+    @Test
+    public void defaultBatchMethodsCallSingleMethodPerItem() {
+        HandlerChain chain = new HandlerChain();
+        chain.addHandler(new ConditionalHandler(order, "a", false));
+
+        chain.handleAll(new Object[4], 4);
+        assertEquals(4, order.size());
+        assertEquals(4, chain.handleConditional(new Object[4], 4));
+        assertEquals(8, order.size());
+    }
+
+    static class SlowSequentialHandler implements IHandler {
+        private final List<String> order;
+
+        SlowSequentialHandler(List<String> order) {
+            this.order = order;
+        }
+
+        @Override
+        public void handleAll() {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            order.add("slow");
+        }
+
+        @Override
+        public boolean handleConditional() {
+            return false;
+        }
+    }
+
+    static class IndependentHandler implements IHandler {
+        private final List<String> order;
+
+        IndependentHandler(List<String> order) {
+            this.order = order;
+        }
+
+        @Override
+        public void handleAll() {
+            order.add("independent");
+        }
+
+        @Override
+        public boolean handleConditional() {
+            return false;
+        }
+
+        @Override
+        public boolean isIndependent() {
+            return true;
+        }
+    }
+
+    static class DependentSequentialHandler implements IHandler {
+        private final List<String> order;
+
+        DependentSequentialHandler(List<String> order) {
+            this.order = order;
+        }
+
+        @Override
+        public void handleAll() {
+            order.add("dependent");
+        }
+
+        @Override
+        public boolean handleConditional() {
+            return false;
+        }
+
+        @Override
+        public Set<Class<? extends IHandler>> dependsOn() {
+            return Collections.singleton(IndependentHandler.class);
+        }
+    }
+
+    static class BarrierHandler implements IHandler {
+        private final CyclicBarrier barrier;
+        private final List<String> order;
+        private final String name;
+
+        BarrierHandler(CyclicBarrier barrier, List<String> order, String name) {
+            this.barrier = barrier;
+            this.order = order;
+            this.name = name;
+        }
+
+        @Override
+        public void handleAll() {
+            try {
+                // 两个处理器必须同时执行才能通过屏障
+                barrier.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (BrokenBarrierException | TimeoutException e) {
+                throw new IllegalStateException("handlers did not run concurrently", e);
+            }
+            order.add(name);
+        }
+
+        @Override
+        public boolean handleConditional() {
+            return false;
+        }
+
+        @Override
+        public boolean isIndependent() {
+            return true;
+        }
+    }
+
+    /**
+     * 记录每次批量调用的批次大小
+     */
+    static class BatchHandler implements IHandler {
+        private final List<Integer> sizes = new ArrayList<>();
+
+        @Override
+        public void handleAll() {
+        }
+
+        @Override
+        public boolean handleConditional() {
+            return false;
+        }
+
+        @Override
+        public void handleAll(Object[] items, int size) {
+            sizes.add(size);
+        }
+
+        @Override
+        public int handleConditional(Object[] items, int size) {
+            sizes.add(size);
+            return size;
+        }
+    }
+
+    /**
+     * 处理掉批次中的偶数
+     */
+    static class EvenHandler implements IHandler {
+        @Override
+        public void handleAll() {
+        }
+
+        @Override
+        public boolean handleConditional() {
+            return false;
+        }
+
+        @Override
+        public int handleConditional(Object[] items, int size) {
+            int remaining = 0;
+            for (int i = 0; i < size; i++) {
+                if ((Integer) items[i] % 2 != 0) {
+                    items[remaining++] = items[i];
+                }
+            }
+            return remaining;
+        }
+    }
+
+    static class ConditionalHandler implements IHandler {
+        private final List<String> order;
+        private final String name;
+        private final boolean handles;
+
+        ConditionalHandler(List<String> order, String name, boolean handles) {
+            this.order = order;
+            this.name = name;
+            this.handles = handles;
+        }
+
+        @Override
+        public void handleAll() {
+            order.add(name);
+        }
+
+        @Override
+        public boolean handleConditional() {
+            order.add(name);
+            return handles;
+        }
+    }
+}
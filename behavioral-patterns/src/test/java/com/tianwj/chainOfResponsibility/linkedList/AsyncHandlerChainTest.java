@@ -0,0 +1,122 @@
+package com.tianwj.chainOfResponsibility.linkedList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 异步处理器链测试
+ *
+ * @author tianwj
+ */
+public class AsyncHandlerChainTest {
+    private List<String> order;
+
+    @Before
+    public void setUp() {
+        order = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Test
+    public void handledRequestStopsTheChain() throws Exception {
+        AsyncHandlerChain chain = new AsyncHandlerChain();
+        chain.addHandler(new RecordingHandler("a", order, CompletableFuture.completedFuture(false)));
+        chain.addHandler(new RecordingHandler("b", order, CompletableFuture.completedFuture(true)));
+        chain.addHandler(new RecordingHandler("c", order, CompletableFuture.completedFuture(false)));
+
+        chain.handle().get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("a", "b"), order);
+    }
+
+    @Test
+    public void pendingHandlerDoesNotBlockCaller() throws Exception {
+        CompletableFuture<Boolean> pending = new CompletableFuture<>();
+        AsyncHandlerChain chain = new AsyncHandlerChain();
+        chain.addHandler(new RecordingHandler("a", order, pending));
+        chain.addHandler(new RecordingHandler("b", order, CompletableFuture.completedFuture(false)));
+
+        CompletableFuture<Void> result = chain.handle();
+        assertFalse(result.isDone());
+        assertEquals(Collections.singletonList("a"), order);
+
+        pending.complete(false);
+        result.get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("a", "b"), order);
+    }
+
+    @Test
+    public void slowHandlerTimesOut() throws Exception {
+        AsyncHandlerChain chain = new AsyncHandlerChain();
+        chain.addHandler(new RecordingHandler("a", order, new CompletableFuture<>(), 20, TimeUnit.MILLISECONDS));
+        chain.addHandler(new RecordingHandler("b", order, CompletableFuture.completedFuture(false)));
+
+        assertTimedOut(chain.handle());
+        assertEquals(Collections.singletonList("a"), order);
+    }
+
+    @Test
+    public void exhaustedBudgetSkipsRemainingHandlers() throws Exception {
+        CompletableFuture<Boolean> pending = new CompletableFuture<>();
+        AsyncHandlerChain chain = new AsyncHandlerChain();
+        chain.addHandler(new RecordingHandler("a", order, pending));
+        chain.addHandler(new RecordingHandler("b", order, CompletableFuture.completedFuture(false)));
+
+        CompletableFuture<Void> result = chain.handle(20, TimeUnit.MILLISECONDS);
+        assertTimedOut(result);
+        // 预算耗尽后前一个处理器才完成，后续处理器不再执行
+        pending.complete(false);
+        assertEquals(Collections.singletonList("a"), order);
+    }
+
+    @Test
+    public void emptyChainCompletesImmediately() {
+        assertTrue(new AsyncHandlerChain().handle().isDone());
+    }
+
+    private static void assertTimedOut(CompletableFuture<Void> result) throws Exception {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("chain should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    static class RecordingHandler extends BaseAsyncHandler {
+        private final String name;
+        private final List<String> order;
+        private final CompletionStage<Boolean> result;
+
+        RecordingHandler(String name, List<String> order, CompletionStage<Boolean> result) {
+            this(name, order, result, 0, TimeUnit.NANOSECONDS);
+        }
+
+        RecordingHandler(String name, List<String> order, CompletionStage<Boolean> result, long timeout, TimeUnit unit) {
+            super(timeout, unit);
+            this.name = name;
+            this.order = order;
+            this.result = result;
+        }
+
+        @Override
+        protected CompletionStage<Boolean> doHandle() {
+            order.add(name);
+            return result;
+        }
+    }
+}
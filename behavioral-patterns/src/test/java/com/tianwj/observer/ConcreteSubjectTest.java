@@ -0,0 +1,112 @@
+package com.tianwj.observer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 被观察者测试
+ *
+ * @author tianwj
+ */
+public class ConcreteSubjectTest {
+
+    @Test
+    public void observersAreNotifiedInRegistrationOrderOnce() {
+        List<String> received = new ArrayList<>();
+        Observer first = message -> received.add("first:" + message);
+        Observer second = message -> received.add("second:" + message);
+        ConcreteSubject subject = new ConcreteSubject();
+        subject.registerObserver(first);
+        subject.registerObserver(second);
+        subject.registerObserver(first);
+
+        subject.notifyObserver("a");
+        subject.removeObserver(first);
+        subject.notifyObserver("b");
+
+        assertEquals(Arrays.asList("first:a", "second:a", "second:b"), received);
+    }
+
+    @Test
+    public void observerCanRemoveItselfDuringNotification() {
+        List<String> received = new ArrayList<>();
+        ConcreteSubject subject = new ConcreteSubject();
+        subject.registerObserver(new Observer() {
+            @Override
+            public void update(String message) {
+                received.add("once:" + message);
+                subject.removeObserver(this);
+            }
+        });
+        subject.registerObserver(message -> received.add("always:" + message));
+
+        subject.notifyObserver("a");
+        subject.notifyObserver("b");
+
+        assertEquals(Arrays.asList("once:a", "always:a", "always:b"), received);
+    }
+
+    @Test
+    public void asyncNotificationSubmitsOneTaskPerObserver() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<String> received = new ArrayList<>();
+        ConcreteSubject subject = new ConcreteSubject(tasks::add);
+        subject.registerObserver(received::add);
+        subject.registerObserver(received::add);
+
+        subject.notifyObserver("a");
+        assertTrue(received.isEmpty());
+        assertEquals(2, tasks.size());
+
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        assertEquals(Collections.nCopies(2, "a"), received);
+    }
+
+    @Test
+    public void concurrentRegistrationsAreNotLost() throws InterruptedException {
+        int threads = 8;
+        int observersPerThread = 500;
+        ConcreteSubject subject = new ConcreteSubject();
+        AtomicInteger notified = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < observersPerThread; i++) {
+                    subject.registerObserver(message -> notified.incrementAndGet());
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        subject.notifyObserver("a");
+        assertEquals(threads * observersPerThread, notified.get());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullObserverIsRejected() {
+        new ConcreteSubject().registerObserver(null);
+    }
+}
@@ -0,0 +1,202 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 异步事件总线测试
+ *
+ * @author tianwj
+ */
+public class AsyncEventBusTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void mailboxDeliversInOrderOneAtATime() throws InterruptedException {
+        AsyncEventBus eventBus = new AsyncEventBus(executor, 1024, 8, OverflowPolicy.BLOCK);
+        RecordingListener listener = new RecordingListener(2000);
+        eventBus.register(listener);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            expected.add(i);
+            eventBus.post(i);
+        }
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(expected, listener.received);
+        assertEquals(1, listener.maxActive.get());
+    }
+
+    @Test
+    public void dropOldestKeepsNewestEvents() {
+        ManualExecutor manual = new ManualExecutor();
+        AsyncEventBus eventBus = new AsyncEventBus(manual, 3, 8, OverflowPolicy.DROP_OLDEST);
+        RecordingListener listener = new RecordingListener(3);
+        eventBus.register(listener);
+        for (int i = 1; i <= 5; i++) {
+            eventBus.post(i);
+        }
+        manual.runAll();
+
+        assertEquals(Arrays.asList(3, 4, 5), listener.received);
+    }
+
+    @Test
+    public void mailboxTaskConsumesAtMostBatchSizeEvents() {
+        ManualExecutor manual = new ManualExecutor();
+        AsyncEventBus eventBus = new AsyncEventBus(manual, 16, 2, OverflowPolicy.REJECT);
+        RecordingListener listener = new RecordingListener(5);
+        eventBus.register(listener);
+        for (int i = 0; i < 5; i++) {
+            eventBus.post(i);
+        }
+
+        assertEquals(3, manual.runAll());
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), listener.received);
+    }
+
+    @Test
+    public void limitedModeCapsConcurrencyPerSubscriber() throws InterruptedException {
+        AsyncEventBus eventBus = new AsyncEventBus(executor, 2);
+        SlowListener listener = new SlowListener(40);
+        eventBus.register(listener);
+        for (int i = 0; i < 40; i++) {
+            eventBus.post(i);
+        }
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, listener.maxActive.get());
+    }
+
+    @Test
+    public void virtualThreadsDoNotBlockPublisher() throws InterruptedException {
+        AsyncEventBus eventBus = AsyncEventBus.withVirtualThreads(1);
+        BlockingListener listener = new BlockingListener(10);
+        eventBus.register(listener);
+        // 订阅者阻塞期间发布线程仍能投递全部事件
+        for (int i = 0; i < 10; i++) {
+            eventBus.post(i);
+        }
+        assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+        listener.release.countDown();
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, listener.maxActive.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void virtualThreadsRequirePositiveCap() {
+        AsyncEventBus.withVirtualThreads(0);
+    }
+
+    public static class RecordingListener {
+        private final List<Integer> received = new ArrayList<>();
+        private final CountDownLatch done;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxActive = new AtomicInteger();
+
+        RecordingListener(int events) {
+            this.done = new CountDownLatch(events);
+        }
+
+        @Subscribe
+        public void onEvent(Integer event) {
+            int current = active.incrementAndGet();
+            maxActive.accumulateAndGet(current, Math::max);
+            synchronized (received) {
+                received.add(event);
+            }
+            active.decrementAndGet();
+            done.countDown();
+        }
+    }
+
+    public static class SlowListener {
+        private final CountDownLatch done;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxActive = new AtomicInteger();
+
+        SlowListener(int events) {
+            this.done = new CountDownLatch(events);
+        }
+
+        @Subscribe
+        public void onEvent(Integer event) throws InterruptedException {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            active.decrementAndGet();
+            done.countDown();
+        }
+    }
+
+    public static class BlockingListener {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch done;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxActive = new AtomicInteger();
+
+        BlockingListener(int events) {
+            this.done = new CountDownLatch(events);
+        }
+
+        @Subscribe
+        public void onEvent(Integer event) throws InterruptedException {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            started.countDown();
+            release.await();
+            active.decrementAndGet();
+            done.countDown();
+        }
+    }
+
+    /**
+     * 由测试线程手动执行任务的执行器
+     */
+    static class ManualExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        /**
+         * 执行所有任务，包括执行过程中新提交的任务
+         *
+         * @return 执行的任务数
+         */
+        int runAll() {
+            int count = 0;
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+                count++;
+            }
+            return count;
+        }
+    }
+}
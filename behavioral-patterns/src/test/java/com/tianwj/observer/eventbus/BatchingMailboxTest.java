@@ -0,0 +1,97 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 批量信箱测试
+ *
+ * @author tianwj
+ */
+public class BatchingMailboxTest {
+
+    @Test
+    public void fullBatchIsDeliveredImmediately() {
+        EventBus eventBus = new EventBus();
+        BatchListener listener = new BatchListener();
+        eventBus.register(listener);
+        for (int i = 0; i < 3; i++) {
+            eventBus.post(i);
+        }
+
+        assertEquals(Collections.singletonList(Arrays.asList(0, 1, 2)), listener.batches);
+    }
+
+    @Test
+    public void partialBatchIsDeliveredAfterLinger() throws InterruptedException {
+        EventBus eventBus = new EventBus();
+        BatchListener listener = new BatchListener();
+        eventBus.register(listener);
+        for (int i = 1; i <= 4; i++) {
+            eventBus.post(i);
+        }
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2, 3)), listener.batches);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Collections.singletonList(4)), listener.batches);
+    }
+
+    @Test
+    public void unregisterFlushesPendingEvents() {
+        EventBus eventBus = new EventBus();
+        BatchListener listener = new BatchListener();
+        eventBus.register(listener);
+        eventBus.post(1);
+        eventBus.unregister(listener);
+
+        assertEquals(Collections.singletonList(Collections.singletonList(1)), listener.batches);
+    }
+
+    @Test
+    public void batchesKeepOrderOnExecutor() {
+        List<Runnable> tasks = new ArrayList<>();
+        EventBus eventBus = new EventBus(tasks::add);
+        BatchListener listener = new BatchListener();
+        eventBus.register(listener);
+        for (int i = 0; i < 6; i++) {
+            eventBus.post(i);
+        }
+        // 同一时刻最多一个消费任务，两个批次由同一个任务按顺序执行
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+
+        assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5)), listener.batches);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchMethodMustTakeList() {
+        new EventBus().register(new InvalidBatchListener());
+    }
+
+    public static class BatchListener {
+        private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(2);
+
+        @Subscribe(batchSize = 3, maxLingerMillis = 50)
+        public void onEvents(List<Integer> events) {
+            batches.add(new ArrayList<>(events));
+            done.countDown();
+        }
+    }
+
+    public static class InvalidBatchListener {
+        @Subscribe(batchSize = 3, maxLingerMillis = 50)
+        public void onEvents(Integer event) {
+        }
+    }
+}
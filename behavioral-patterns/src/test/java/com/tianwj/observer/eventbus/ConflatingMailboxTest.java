@@ -0,0 +1,132 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 合并信箱测试
+ *
+ * @author tianwj
+ */
+public class ConflatingMailboxTest {
+    private final List<Runnable> tasks = new ArrayList<>();
+    private EventBus eventBus;
+
+    @Before
+    public void setUp() {
+        eventBus = new EventBus(tasks::add);
+    }
+
+    @Test
+    public void latestEventPerKeyKeepsFirstPosition() {
+        QuoteListener listener = new QuoteListener();
+        eventBus.register(listener);
+        eventBus.post(new Quote("A", 1));
+        eventBus.post(new Quote("B", 1));
+        eventBus.post(new Quote("A", 2));
+        runTasks();
+
+        assertEquals(Arrays.asList("A=2", "B=1"), listener.received);
+    }
+
+    @Test
+    public void plainEventsConflateByType() {
+        IntegerListener listener = new IntegerListener();
+        eventBus.register(listener);
+        for (int i = 1; i <= 3; i++) {
+            eventBus.post(i);
+        }
+        runTasks();
+
+        assertEquals(Arrays.asList(3), listener.received);
+    }
+
+    @Test
+    public void conflationIsPerSubscriber() {
+        QuoteListener conflating = new QuoteListener();
+        AllQuotesListener all = new AllQuotesListener();
+        eventBus.register(conflating);
+        eventBus.register(all);
+        eventBus.post(new Quote("A", 1));
+        eventBus.post(new Quote("A", 2));
+        runTasks();
+
+        assertEquals(Arrays.asList("A=2"), conflating.received);
+        assertEquals(Arrays.asList("A=1", "A=2"), all.received);
+    }
+
+    @Test
+    public void replacedEventsAreCountedAsDropped() {
+        SubscriberMetrics metrics = new SubscriberMetrics();
+        eventBus.setMetricsListener(metrics);
+        eventBus.register(new QuoteListener());
+        eventBus.post(new Quote("A", 1));
+        eventBus.post(new Quote("A", 2));
+        eventBus.post(new Quote("A", 3));
+        runTasks();
+
+        SubscriberMetrics.Stats stats = metrics.getStats().values().iterator().next();
+        assertEquals(2, stats.getDropped());
+        assertEquals(1, stats.getInvocations());
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    public static class Quote implements Conflatable {
+        private final String symbol;
+        private final int price;
+
+        Quote(String symbol, int price) {
+            this.symbol = symbol;
+            this.price = price;
+        }
+
+        @Override
+        public Object conflationKey() {
+            return symbol;
+        }
+
+        @Override
+        public String toString() {
+            return symbol + "=" + price;
+        }
+    }
+
+    public static class QuoteListener {
+        private final List<String> received = new ArrayList<>();
+
+        @Subscribe(conflate = true)
+        public void onQuote(Quote quote) {
+            received.add(quote.toString());
+        }
+    }
+
+    public static class AllQuotesListener {
+        private final List<String> received = new ArrayList<>();
+
+        @Subscribe
+        public void onQuote(Quote quote) {
+            received.add(quote.toString());
+        }
+    }
+
+    public static class IntegerListener {
+        private final List<Integer> received = new ArrayList<>();
+
+        @Subscribe(conflate = true)
+        public void onEvent(Integer event) {
+            received.add(event);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 事件日志测试
+ *
+ * @author tianwj
+ */
+public class EventJournalTest {
+    private static final int SEGMENT_BYTES = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void firstEventOfNewSubscriberIsReplayedAfterFailure() throws Exception {
+        File directory = folder.newFolder();
+        try (EventJournal journal = new EventJournal(directory, SEGMENT_BYTES, 0, new StringCodec())) {
+            EventBus eventBus = new EventBus();
+            eventBus.setJournal(journal);
+            eventBus.register(new RecordingListener("a"));
+            postIgnoringFailure(eventBus, "a");
+        }
+
+        assertEquals(Collections.singletonList("a"), replay(directory));
+    }
+
+    @Test
+    public void replayStartsFromFailedEvent() throws Exception {
+        File directory = folder.newFolder();
+        try (EventJournal journal = new EventJournal(directory, SEGMENT_BYTES, 0, new StringCodec())) {
+            EventBus eventBus = new EventBus();
+            eventBus.setJournal(journal);
+            eventBus.register(new RecordingListener("b"));
+            eventBus.post("a");
+            postIgnoringFailure(eventBus, "b");
+            eventBus.post("c");
+        }
+
+        assertEquals(Arrays.asList("b", "c"), replay(directory));
+    }
+
+    @Test
+    public void codecFailureDoesNotHideLaterRecords() throws Exception {
+        File directory = folder.newFolder();
+        try (EventJournal journal = new EventJournal(directory, SEGMENT_BYTES, 0, new StringCodec())) {
+            journal.append("a");
+            try {
+                journal.append(StringCodec.FAILING);
+                fail("codec failure should propagate");
+            } catch (IllegalStateException expected) {
+                // 编码失败
+            }
+            journal.append("c");
+        }
+
+        List<Object> events = new ArrayList<>();
+        try (EventJournal journal = new EventJournal(directory, SEGMENT_BYTES, 0, new StringCodec())) {
+            journal.replay((event, nextOffset) -> events.add(event));
+        }
+        assertEquals(Arrays.asList("a", "c"), events);
+    }
+
+    private static void postIgnoringFailure(EventBus eventBus, Object event) {
+        try {
+            eventBus.post(event);
+            fail("subscriber failure should propagate");
+        } catch (IllegalStateException expected) {
+            // 订阅者处理失败
+        }
+    }
+
+    /**
+     * 重新打开日志，注册同一ID的订阅者并重放
+     */
+    private static List<String> replay(File directory) throws Exception {
+        RecordingListener listener = new RecordingListener(null);
+        try (EventJournal journal = new EventJournal(directory, SEGMENT_BYTES, 0, new StringCodec())) {
+            EventBus eventBus = new EventBus();
+            eventBus.setJournal(journal);
+            eventBus.register(listener);
+            eventBus.replayJournal();
+        }
+        return listener.received;
+    }
+
+    public static class RecordingListener {
+        private final String failOn;
+        private final List<String> received = new ArrayList<>();
+
+        RecordingListener(String failOn) {
+            this.failOn = failOn;
+        }
+
+        @Subscribe
+        public void onEvent(String event) {
+            if (event.equals(failOn)) {
+                throw new IllegalStateException("failed on " + event);
+            }
+            received.add(event);
+        }
+    }
+
+    /**
+     * UTF-8 字符串编解码器，编码 {@link #FAILING} 时写入部分字节后失败
+     */
+    private static class StringCodec implements EventCodec {
+        static final String FAILING = "failing";
+
+        @Override
+        public void encode(Object event, ByteBuffer buffer) {
+            buffer.put(((String) event).getBytes(StandardCharsets.UTF_8));
+            if (FAILING.equals(event)) {
+                throw new IllegalStateException("cannot encode " + event);
+            }
+        }
+
+        @Override
+        public Object decode(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 优先级通道调度器测试
+ *
+ * @author tianwj
+ */
+public class PriorityLaneSchedulerTest {
+    private final List<Runnable> tasks = new ArrayList<>();
+    private PriorityLaneScheduler scheduler;
+    private AsyncEventBus eventBus;
+
+    @Before
+    public void setUp() {
+        scheduler = new PriorityLaneScheduler(tasks::add, 1);
+        eventBus = new AsyncEventBus(scheduler);
+    }
+
+    @Test
+    public void lanesAreServedByWeight() {
+        List<Priority> order = new ArrayList<>();
+        eventBus.register(new LowListener(order));
+        eventBus.register(new NormalListener(order));
+        eventBus.register(new HighListener(order));
+        for (int i = 0; i < 13; i++) {
+            eventBus.post("event-" + i);
+        }
+        runTasks();
+
+        assertEquals(39, order.size());
+        assertEquals(Priority.HIGH, order.get(0));
+        List<Priority> firstRound = order.subList(0, 13);
+        assertEquals(8, Collections.frequency(firstRound, Priority.HIGH));
+        assertEquals(4, Collections.frequency(firstRound, Priority.NORMAL));
+        assertEquals(1, Collections.frequency(firstRound, Priority.LOW));
+    }
+
+    @Test
+    public void expiredEventsAreShed() throws InterruptedException {
+        DeadlineListener listener = new DeadlineListener();
+        eventBus.register(listener);
+        for (int i = 0; i < 3; i++) {
+            eventBus.post("event-" + i);
+        }
+        Thread.sleep(20);
+        runTasks();
+
+        assertTrue(listener.received.isEmpty());
+        PriorityLaneScheduler.LaneStats stats = scheduler.getStats(Priority.NORMAL);
+        assertEquals(3, stats.getShed());
+        assertEquals(3, stats.getDequeued());
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    @Test
+    public void subscriberErrorDoesNotStallLanes() {
+        ErrorListener listener = new ErrorListener();
+        eventBus.register(listener);
+        eventBus.post("fail");
+        eventBus.post("second");
+        try {
+            tasks.remove(0).run();
+            fail("error should escape the worker");
+        } catch (FatalError expected) {
+            // 订阅者抛出的 Error 终止当前工作任务
+        }
+        runTasks();
+
+        assertEquals(Arrays.asList("fail", "second"), listener.received);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void conflatingSubscriberCannotSetPriority() {
+        eventBus.register(new PrioritizedConflatingListener());
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    public static class HighListener {
+        private final List<Priority> order;
+
+        HighListener(List<Priority> order) {
+            this.order = order;
+        }
+
+        @Subscribe(priority = Priority.HIGH)
+        public void onEvent(String event) {
+            order.add(Priority.HIGH);
+        }
+    }
+
+    public static class NormalListener {
+        private final List<Priority> order;
+
+        NormalListener(List<Priority> order) {
+            this.order = order;
+        }
+
+        @Subscribe
+        public void onEvent(String event) {
+            order.add(Priority.NORMAL);
+        }
+    }
+
+    public static class LowListener {
+        private final List<Priority> order;
+
+        LowListener(List<Priority> order) {
+            this.order = order;
+        }
+
+        @Subscribe(priority = Priority.LOW)
+        public void onEvent(String event) {
+            order.add(Priority.LOW);
+        }
+    }
+
+    public static class DeadlineListener {
+        private final List<String> received = new ArrayList<>();
+
+        @Subscribe(deadlineMillis = 1)
+        public void onEvent(String event) {
+            received.add(event);
+        }
+    }
+
+    public static class ErrorListener {
+        private final List<String> received = new ArrayList<>();
+
+        @Subscribe
+        public void onEvent(String event) {
+            received.add(event);
+            if ("fail".equals(event)) {
+                throw new FatalError();
+            }
+        }
+    }
+
+    public static class PrioritizedConflatingListener {
+        @Subscribe(conflate = true, priority = Priority.HIGH)
+        public void onEvent(String event) {
+        }
+    }
+
+    static class FatalError extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,186 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 环形缓冲区事件总线测试
+ *
+ * @author tianwj
+ */
+public class RingBufferEventBusTest {
+    private RingBufferEventBus eventBus;
+
+    @Before
+    public void setUp() {
+        eventBus = new RingBufferEventBus(64, 2, WaitStrategy.PARK);
+    }
+
+    @After
+    public void tearDown() {
+        eventBus.shutdown();
+    }
+
+    @Test
+    public void batchSubscriberReceivesOrderedBatches() throws InterruptedException {
+        BatchListener listener = new BatchListener(25);
+        eventBus.register(listener);
+        for (int i = 0; i < 25; i++) {
+            eventBus.post(i);
+        }
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        List<Integer> all = new ArrayList<>();
+        for (List<Integer> batch : listener.batches) {
+            all.addAll(batch);
+        }
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, all);
+        assertEquals(Arrays.asList(10, 10, 5), sizes(listener.batches));
+    }
+
+    @Test
+    public void everySubscriberSeesEachProducerInOrder() throws InterruptedException {
+        int producers = 4;
+        int eventsPerProducer = 5000;
+        List<OrderListener> listeners = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OrderListener listener = new OrderListener(producers, producers * eventsPerProducer);
+            listeners.add(listener);
+            eventBus.register(listener);
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    eventBus.post((long) producer * eventsPerProducer + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (OrderListener listener : listeners) {
+            assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+            assertEquals(0, listener.outOfOrder.get());
+        }
+    }
+
+    @Test
+    public void failingSubscriberDoesNotStopConsumer() throws InterruptedException {
+        eventBus.shutdown();
+        eventBus = new RingBufferEventBus(8, 1, WaitStrategy.PARK, r -> {
+            Thread thread = new Thread(r);
+            thread.setUncaughtExceptionHandler((t, e) -> {
+            });
+            return thread;
+        });
+        FailingListener listener = new FailingListener(100);
+        eventBus.register(listener);
+        for (int i = 0; i < 100; i++) {
+            eventBus.post("event-" + i);
+        }
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void postAfterShutdownIsRejected() {
+        eventBus.shutdown();
+        eventBus.post(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void conflatingSubscriberIsRejected() {
+        eventBus.register(new ConflatingListener());
+    }
+
+    private static List<Integer> sizes(List<List<Integer>> batches) {
+        List<Integer> sizes = new ArrayList<>();
+        for (List<Integer> batch : batches) {
+            sizes.add(batch.size());
+        }
+        return sizes;
+    }
+
+    public static class BatchListener {
+        private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done;
+
+        BatchListener(int events) {
+            this.done = new CountDownLatch(events);
+        }
+
+        @Subscribe(batchSize = 10, maxLingerMillis = 50)
+        public void onEvents(List<Integer> events) {
+            batches.add(new ArrayList<>(events));
+            for (int i = 0; i < events.size(); i++) {
+                done.countDown();
+            }
+        }
+    }
+
+    public static class OrderListener {
+        private final long[] last;
+        private final AtomicInteger outOfOrder = new AtomicInteger();
+        private final CountDownLatch done;
+        private final int eventsPerProducer;
+
+        OrderListener(int producers, int events) {
+            this.last = new long[producers];
+            Arrays.fill(last, -1);
+            this.eventsPerProducer = events / producers;
+            this.done = new CountDownLatch(events);
+        }
+
+        @Subscribe
+        public void onEvent(Long event) {
+            int producer = (int) (event / eventsPerProducer);
+            long index = event % eventsPerProducer;
+            if (index != last[producer] + 1) {
+                outOfOrder.incrementAndGet();
+            }
+            last[producer] = index;
+            done.countDown();
+        }
+    }
+
+    public static class FailingListener {
+        private final CountDownLatch done;
+
+        FailingListener(int events) {
+            this.done = new CountDownLatch(events);
+        }
+
+        @Subscribe
+        public void onEvent(String event) {
+            done.countDown();
+            throw new IllegalStateException(event);
+        }
+    }
+
+    public static class ConflatingListener {
+        @Subscribe(conflate = true)
+        public void onEvent(Integer event) {
+        }
+    }
+}
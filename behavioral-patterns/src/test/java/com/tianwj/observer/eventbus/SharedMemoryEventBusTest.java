@@ -0,0 +1,113 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 共享内存事件总线测试，同一进程内用两个实例映射同一个文件模拟两个进程
+ *
+ * @author tianwj
+ */
+public class SharedMemoryEventBusTest {
+    private static final int SLOT_CAPACITY = 256;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SharedMemoryEventBus first;
+    private SharedMemoryEventBus second;
+
+    @Before
+    public void setUp() throws IOException {
+        File file = folder.newFile("events");
+        first = new SharedMemoryEventBus(file, 0, 2, SLOT_CAPACITY, new StringCodec(), WaitStrategy.PARK);
+        second = new SharedMemoryEventBus(file, 1, 2, SLOT_CAPACITY, new StringCodec(), WaitStrategy.PARK);
+    }
+
+    @After
+    public void tearDown() {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void postedEventReachesLocalAndRemoteSubscribersOnce() throws InterruptedException {
+        QueueListener local = new QueueListener();
+        QueueListener remote = new QueueListener();
+        first.register(local);
+        second.register(remote);
+        first.post("hello");
+
+        assertEquals("hello", remote.events.poll(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("hello"), drain(local));
+        // 本进程写入的事件不会被自己的读线程再投递一次
+        assertNull(local.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void recordsWrapAroundTheRegion() throws InterruptedException {
+        QueueListener remote = new QueueListener();
+        second.register(remote);
+        // 每条记录约 12 字节，累计写满区域多次，逐条等待避免慢读者被套圈
+        for (int i = 0; i < 100; i++) {
+            String event = "event-" + i;
+            first.post(event);
+            assertEquals(event, remote.events.poll(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, second.getLostEvents());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void eventLargerThanRegionIsRejected() {
+        char[] chars = new char[SLOT_CAPACITY];
+        Arrays.fill(chars, 'x');
+        first.post(new String(chars));
+    }
+
+    private static List<String> drain(QueueListener listener) {
+        List<String> events = new ArrayList<>();
+        listener.events.drainTo(events);
+        return events;
+    }
+
+    public static class QueueListener {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Subscribe
+        public void onEvent(String event) {
+            events.add(event);
+        }
+    }
+
+    private static class StringCodec implements EventCodec {
+        @Override
+        public void encode(Object event, ByteBuffer buffer) {
+            buffer.put(((String) event).getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Object decode(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 订阅方法调用器测试
+ *
+ * @author tianwj
+ */
+public class SubscriberInvokerTest {
+
+    @Test
+    public void publicMethodUsesGeneratedInvoker() throws Throwable {
+        Method method = PublicListener.class.getMethod("onEvent", String.class);
+        assertTrue(SubscriberInvoker.isLambdaAccessible(method));
+
+        PublicListener listener = new PublicListener();
+        SubscriberInvoker.of(method).invoke(listener, "event");
+        assertEquals("event", listener.received);
+    }
+
+    @Test
+    public void nonPublicMethodFallsBackToMethodHandle() throws Throwable {
+        Method method = PrivateListener.class.getDeclaredMethod("onEvent", String.class);
+        method.setAccessible(true);
+        assertFalse(SubscriberInvoker.isLambdaAccessible(method));
+
+        PrivateListener listener = new PrivateListener();
+        SubscriberInvoker.of(method).invoke(listener, "event");
+        assertEquals("event", listener.received);
+    }
+
+    @Test
+    public void checkedExceptionIsNotWrappedByInvoker() throws Exception {
+        Method method = PublicListener.class.getMethod("onFailure", Integer.class);
+        IOException failure = new IOException("failure");
+        PublicListener listener = new PublicListener();
+        listener.failure = failure;
+        try {
+            SubscriberInvoker.of(method).invoke(listener, 1);
+            fail("exception should propagate");
+        } catch (Throwable e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test
+    public void subscriberWrapsCheckedException() throws Exception {
+        PublicListener listener = new PublicListener();
+        listener.failure = new IOException("failure");
+        Subscriber subscriber = new Subscriber(listener, PublicListener.class.getMethod("onFailure", Integer.class));
+        try {
+            subscriber.execute(1);
+            fail("exception should propagate");
+        } catch (RuntimeException e) {
+            assertSame(listener.failure, e.getCause());
+        }
+    }
+
+    public static class PublicListener {
+        private String received;
+        private IOException failure;
+
+        public void onEvent(String event) {
+            received = event;
+        }
+
+        public void onFailure(Integer event) throws IOException {
+            throw failure;
+        }
+    }
+
+    static class PrivateListener {
+        private String received;
+
+        private void onEvent(String event) {
+            received = event;
+        }
+    }
+}
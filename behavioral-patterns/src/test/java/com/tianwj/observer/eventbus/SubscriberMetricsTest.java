@@ -0,0 +1,88 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * 订阅者指标测试
+ *
+ * @author tianwj
+ */
+public class SubscriberMetricsTest {
+
+    @Test
+    public void executorRejectionDoesNotLeaveQueueDepth() {
+        EventBus eventBus = new EventBus(runnable -> {
+            throw new RejectedExecutionException("rejected");
+        });
+        SubscriberMetrics metrics = new SubscriberMetrics();
+        eventBus.setMetricsListener(metrics);
+        eventBus.register(new Listener());
+        try {
+            eventBus.post("event");
+            fail("rejection should propagate");
+        } catch (RejectedExecutionException expected) {
+            // 执行器拒绝
+        }
+
+        SubscriberMetrics.Stats stats = onlyStats(metrics);
+        assertEquals(1, stats.getRejected());
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    @Test
+    public void mailboxRejectionDoesNotLeaveQueueDepth() {
+        List<Runnable> tasks = new ArrayList<>();
+        AsyncEventBus eventBus = new AsyncEventBus(tasks::add, 1, 1, OverflowPolicy.REJECT);
+        SubscriberMetrics metrics = new SubscriberMetrics();
+        eventBus.setMetricsListener(metrics);
+        eventBus.register(new Listener());
+        eventBus.post("first");
+        try {
+            eventBus.post("second");
+            fail("full mailbox should reject");
+        } catch (RejectedExecutionException expected) {
+            // 信箱已满
+        }
+
+        SubscriberMetrics.Stats stats = onlyStats(metrics);
+        assertEquals(1, stats.getRejected());
+        assertEquals(1, stats.getQueueDepth());
+        for (Runnable task : new ArrayList<>(tasks)) {
+            task.run();
+        }
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    @Test
+    public void unregisterReleasesStats() {
+        EventBus eventBus = new EventBus();
+        SubscriberMetrics metrics = new SubscriberMetrics();
+        eventBus.setMetricsListener(metrics);
+        Listener listener = new Listener();
+        eventBus.register(listener);
+        eventBus.post("event");
+        Subscriber subscriber = metrics.getStats().keySet().iterator().next();
+
+        eventBus.unregister(listener);
+        assertNull(metrics.getStats(subscriber));
+    }
+
+    private static SubscriberMetrics.Stats onlyStats(SubscriberMetrics metrics) {
+        assertEquals(1, metrics.getStats().size());
+        return metrics.getStats().values().iterator().next();
+    }
+
+    public static class Listener {
+        @Subscribe
+        public void onEvent(String event) {
+        }
+    }
+}
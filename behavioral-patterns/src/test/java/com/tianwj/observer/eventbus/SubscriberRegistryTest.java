@@ -0,0 +1,264 @@
+package com.tianwj.observer.eventbus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 订阅者注册表测试
+ *
+ * @author tianwj
+ */
+public class SubscriberRegistryTest {
+
+    @Test
+    public void snapshotKeepsRegistrationOrderAcrossChanges() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        Listener a = new Listener("A");
+        Listener b = new Listener("B");
+        Listener c = new Listener("C");
+        registry.register(a);
+        registry.register(b);
+        registry.register(c);
+        assertEquals(Arrays.asList("A", "B", "C"), names(registry, "event"));
+
+        registry.unregister(b);
+        assertEquals(Arrays.asList("A", "C"), names(registry, "event"));
+
+        registry.register(new Listener("D"));
+        registry.register(b);
+        assertEquals(Arrays.asList("A", "C", "D", "B"), names(registry, "event"));
+    }
+
+    @Test
+    public void postedTypeMatchesSupertypeSubscribersInRegistrationOrder() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        ObjectListener objectListener = new ObjectListener();
+        CharSequenceListener charSequenceListener = new CharSequenceListener();
+        Listener stringListener = new Listener("A");
+        registry.register(objectListener);
+        registry.register(charSequenceListener);
+        registry.register(stringListener);
+
+        assertEquals(Arrays.<Object>asList(objectListener, charSequenceListener, stringListener), targets(registry, "event"));
+        assertEquals(Collections.<Object>singletonList(objectListener), targets(registry, 1));
+    }
+
+    @Test
+    public void cachedSnapshotIsReusedAndUpdatedOnRegistration() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        registry.register(new Listener("A"));
+        List<Subscriber> first = registry.getMatchedSubscribers("event");
+        assertSame(first, registry.getMatchedSubscribers("other"));
+
+        CharSequenceListener late = new CharSequenceListener();
+        registry.register(late);
+        assertEquals(2, live(registry, "event").size());
+        // 其他事件类型的快照不受影响
+        assertEquals(Collections.emptyList(), live(registry, 1));
+    }
+
+    @Test
+    public void unregisterCompactsWithoutLosingLiveSubscribers() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        List<Listener> listeners = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Listener listener = new Listener(String.valueOf(i));
+            listeners.add(listener);
+            registry.register(listener);
+        }
+        // 建立分发缓存，之后的变更都是增量更新
+        registry.getMatchedSubscribers("event");
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 == 0) {
+                expected.add(String.valueOf(i));
+            } else {
+                registry.unregister(listeners.get(i));
+            }
+        }
+        assertEquals(expected, names(registry, "event"));
+        // 已取消注册的订阅者超过一半时整理，快照中墓碑不超过一半
+        assertTrue(registry.getMatchedSubscribers("event").size() <= 2 * expected.size());
+
+        registry.register(new Listener("new"));
+        expected.add("new");
+        assertEquals(expected, names(registry, "event"));
+    }
+
+    @Test
+    public void changesReachEveryCachedSubtype() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        registry.getMatchedSubscribers("event");
+        registry.getMatchedSubscribers(1);
+
+        ObjectListener listener = new ObjectListener();
+        registry.register(listener);
+        assertEquals(1, live(registry, "event").size());
+        assertEquals(1, live(registry, 1).size());
+
+        registry.unregister(listener);
+        assertEquals(Collections.emptyList(), live(registry, "event"));
+        assertEquals(Collections.emptyList(), live(registry, 1));
+    }
+
+    @Test
+    public void unregisteredListenerReceivesNoEvents() {
+        EventBus eventBus = new EventBus();
+        Listener a = new Listener("A");
+        Listener b = new Listener("B");
+        eventBus.register(a);
+        eventBus.register(b);
+        eventBus.post("first");
+        eventBus.unregister(a);
+        eventBus.post("second");
+
+        assertEquals(Collections.singletonList("first"), a.received);
+        assertEquals(Arrays.asList("first", "second"), b.received);
+    }
+
+    @Test
+    public void duplicateRegistrationIsIgnored() {
+        EventBus eventBus = new EventBus();
+        Listener listener = new Listener("A");
+        eventBus.register(listener);
+        eventBus.register(listener);
+        eventBus.post("event");
+
+        assertEquals(Collections.singletonList("event"), listener.received);
+    }
+
+    @Test
+    public void listenersAreRegisteredByIdentity() {
+        EventBus eventBus = new EventBus();
+        EqualListener a = new EqualListener();
+        EqualListener b = new EqualListener();
+        eventBus.register(a);
+        eventBus.register(b);
+        eventBus.unregister(a);
+        eventBus.post("event");
+
+        assertEquals(0, a.count);
+        assertEquals(1, b.count);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unregisteringUnknownListenerIsRejected() {
+        new SubscriberRegistry().unregister(new Listener("A"));
+    }
+
+    @Test
+    public void overriddenSubscriberMethodIsRegisteredOnce() {
+        EventBus eventBus = new EventBus();
+        Listener listener = new OverridingListener("A");
+        eventBus.register(listener);
+        eventBus.post("event");
+
+        assertEquals(Collections.singletonList("override:event"), listener.received);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void subscriberMethodWithTwoParametersIsRejected() {
+        new SubscriberRegistry().register(new InvalidListener());
+    }
+
+    private static List<Subscriber> live(SubscriberRegistry registry, Object event) {
+        List<Subscriber> live = new ArrayList<>();
+        for (Subscriber subscriber : registry.getMatchedSubscribers(event)) {
+            if (!subscriber.isUnregistered()) {
+                live.add(subscriber);
+            }
+        }
+        return live;
+    }
+
+    private static List<Object> targets(SubscriberRegistry registry, Object event) {
+        List<Object> targets = new ArrayList<>();
+        for (Subscriber subscriber : live(registry, event)) {
+            targets.add(subscriber.getTarget());
+        }
+        return targets;
+    }
+
+    private static List<String> names(SubscriberRegistry registry, Object event) {
+        List<String> names = new ArrayList<>();
+        for (Subscriber subscriber : live(registry, event)) {
+            names.add(((Listener) subscriber.getTarget()).name);
+        }
+        return names;
+    }
+
+    public static class Listener {
+        private final String name;
+        private final List<String> received = new ArrayList<>();
+
+        Listener(String name) {
+            this.name = name;
+        }
+
+        @Subscribe
+        public void onEvent(String event) {
+            received.add(event);
+        }
+    }
+
+    public static class OverridingListener extends Listener {
+        OverridingListener(String name) {
+            super(name);
+        }
+
+        @Subscribe
+        @Override
+        public void onEvent(String event) {
+            super.onEvent("override:" + event);
+        }
+    }
+
+    /**
+     * 所有实例都相等的订阅者，用于验证按对象身份注册
+     */
+    public static class EqualListener {
+        private int count;
+
+        @Subscribe
+        public void onEvent(String event) {
+            count++;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof EqualListener;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
+    public static class InvalidListener {
+        @Subscribe
+        public void onEvent(String event, Object extra) {
+        }
+    }
+
+    public static class CharSequenceListener {
+        @Subscribe
+        public void onEvent(CharSequence event) {
+        }
+    }
+
+    public static class ObjectListener {
+        @Subscribe
+        public void onEvent(Object event) {
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.tianwj.observer.typed;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 背压被观察者测试
+ *
+ * @author tianwj
+ */
+public class BackpressureSubjectTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void deliversRequestedEventsInOrder() throws InterruptedException {
+        BackpressureSubject<Integer> subject = new BackpressureSubject<>(executor, 16, BackpressurePolicy.BLOCK);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        subject.subscribe(subscriber);
+        for (int i = 0; i < 5; i++) {
+            subject.notifyObserver(i);
+        }
+        subject.close();
+
+        assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), subscriber.received);
+        assertEquals(1, subscriber.terminalSignals.get());
+    }
+
+    @Test
+    public void overflowWithCancelPolicyDeliversErrorOnce() throws InterruptedException {
+        BackpressureSubject<Integer> subject = new BackpressureSubject<>(executor, 1, BackpressurePolicy.CANCEL);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        subject.subscribe(subscriber);
+        subject.notifyObserver(1);
+        subject.notifyObserver(2);
+
+        assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.error.get() instanceof RejectedExecutionException);
+        assertEquals(Collections.emptyList(), subscriber.received);
+        subject.notifyObserver(3);
+        subject.close();
+        Thread.sleep(50);
+        assertEquals(1, subscriber.terminalSignals.get());
+    }
+
+    /**
+     * 其他线程在投递任务运行期间使订阅失败（非法的 request），订阅者仍然收到且只收到一个 onError
+     */
+    @Test
+    public void failureDuringDrainStillDeliversError() throws Exception {
+        for (int round = 0; round < 2000; round++) {
+            BackpressureSubject<Integer> subject = new BackpressureSubject<>(executor, 1024, BackpressurePolicy.BLOCK);
+            RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+            subject.subscribe(subscriber);
+            CountDownLatch start = new CountDownLatch(1);
+            int spins = round % 64;
+            Thread failing = new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < spins; i++) {
+                    Thread.yield();
+                }
+                subscriber.subscription.request(0);
+            });
+            failing.start();
+            start.countDown();
+            subject.notifyObserver(round);
+            failing.join();
+
+            assertTrue("no onError in round " + round, subscriber.terminated.await(5, TimeUnit.SECONDS));
+            assertTrue(subscriber.error.get() instanceof IllegalArgumentException);
+            assertEquals(1, subscriber.terminalSignals.get());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Integer> {
+        private final long initialRequest;
+        private final List<Integer> received = new ArrayList<>();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private final AtomicInteger terminalSignals = new AtomicInteger();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private volatile Flow.Subscription subscription;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            terminalSignals.incrementAndGet();
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            terminalSignals.incrementAndGet();
+            terminated.countDown();
+        }
+    }
+}
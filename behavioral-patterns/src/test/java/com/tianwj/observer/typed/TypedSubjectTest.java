@@ -0,0 +1,108 @@
+package com.tianwj.observer.typed;
+
+import com.tianwj.observer.ConcreteSubject;
+import com.tianwj.observer.Observer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 泛型与数值被观察者测试
+ *
+ * @author tianwj
+ */
+public class TypedSubjectTest {
+
+    @Test
+    public void typedSubjectDeliversEventObjects() {
+        List<Order> received = new ArrayList<>();
+        ConcreteTypedSubject<Order> subject = new ConcreteTypedSubject<>();
+        subject.registerObserver(received::add);
+        Order order = new Order(42);
+
+        subject.notifyObserver(order);
+
+        assertEquals(1, received.size());
+        // 观察者收到的是同一个事件对象，没有经过字符串转换
+        assertSame(order, received.get(0));
+    }
+
+    @Test
+    public void supertypeObserverReceivesSubtypeEvents() {
+        List<Object> received = new ArrayList<>();
+        TypedObserver<Object> observer = received::add;
+        ConcreteTypedSubject<Integer> integers = new ConcreteTypedSubject<>();
+        ConcreteTypedSubject<String> strings = new ConcreteTypedSubject<>();
+        integers.registerObserver(observer);
+        strings.registerObserver(observer);
+
+        integers.notifyObserver(1);
+        strings.notifyObserver("a");
+
+        assertEquals(Arrays.<Object>asList(1, "a"), received);
+    }
+
+    @Test
+    public void stringObserverWorksWithTypedSubject() {
+        List<String> received = new ArrayList<>();
+        Observer observer = received::add;
+        ConcreteSubject subject = new ConcreteSubject();
+        ConcreteTypedSubject<String> typed = new ConcreteTypedSubject<>();
+        subject.registerObserver(observer);
+        typed.registerObserver(observer);
+
+        subject.notifyObserver("a");
+        typed.notifyObserver("b");
+
+        assertEquals(Arrays.asList("a", "b"), received);
+    }
+
+    @Test
+    public void longSubjectDeliversPrimitiveValues() {
+        long[] sum = new long[1];
+        LongObserver observer = value -> sum[0] += value;
+        ConcreteLongSubject subject = new ConcreteLongSubject();
+        subject.registerObserver(observer);
+        subject.notifyObserver(Long.MAX_VALUE - 1);
+        subject.removeObserver(observer);
+        subject.notifyObserver(100);
+
+        assertEquals(Long.MAX_VALUE - 1, sum[0]);
+    }
+
+    @Test
+    public void doubleSubjectDeliversPrimitiveValues() {
+        double[] values = new double[2];
+        int[] count = new int[1];
+        ConcreteDoubleSubject subject = new ConcreteDoubleSubject();
+        subject.registerObserver(value -> values[count[0]++] = value);
+        subject.notifyObserver(0.5);
+        subject.notifyObserver(-1.25);
+
+        assertArrayEquals(new double[]{0.5, -1.25}, values, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void typedSubjectRequiresExecutor() {
+        new ConcreteTypedSubject<String>(null);
+    }
+
+    static class Order {
+        private final int id;
+
+        Order(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return "Order" + id;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.tianwj.state.table;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 线程安全状态上下文测试
+ *
+ * @author tianwj
+ * @date 2026/10/18 16:30
+ */
+public class ConcurrentStateContextTest {
+    enum DoorState {
+        OPEN, CLOSED
+    }
+
+    enum DoorEvent {
+        TOGGLE, CLOSE
+    }
+
+    @Test
+    public void concurrentTransitionIsAppliedOnce() throws InterruptedException {
+        StateMachine<DoorState, DoorEvent, AtomicInteger> machine = new StateMachine<>(DoorState.class, DoorEvent.class);
+        machine.addTransition(DoorState.OPEN, DoorEvent.CLOSE, DoorState.CLOSED,
+                null, (from, event, to, actions) -> actions.incrementAndGet());
+        for (int round = 0; round < 200; round++) {
+            AtomicInteger actions = new AtomicInteger();
+            ConcurrentStateContext<DoorState, DoorEvent, AtomicInteger> context =
+                    new ConcurrentStateContext<>(machine, DoorState.OPEN, actions);
+            AtomicInteger fired = new AtomicInteger();
+            runConcurrently(4, () -> {
+                if (context.fire(DoorEvent.CLOSE)) {
+                    fired.incrementAndGet();
+                }
+            });
+
+            assertEquals(1, fired.get());
+            assertEquals(1, actions.get());
+            assertEquals(DoorState.CLOSED, context.getState());
+        }
+    }
+
+    @Test
+    public void everyConcurrentToggleIsApplied() throws InterruptedException {
+        StateMachine<DoorState, DoorEvent, AtomicInteger> machine = new StateMachine<>(DoorState.class, DoorEvent.class);
+        machine.addTransition(DoorState.OPEN, DoorEvent.TOGGLE, DoorState.CLOSED,
+                        null, (from, event, to, actions) -> actions.incrementAndGet())
+                .addTransition(DoorState.CLOSED, DoorEvent.TOGGLE, DoorState.OPEN,
+                        null, (from, event, to, actions) -> actions.incrementAndGet());
+        AtomicInteger actions = new AtomicInteger();
+        ConcurrentStateContext<DoorState, DoorEvent, AtomicInteger> context =
+                new ConcurrentStateContext<>(machine, DoorState.OPEN, actions);
+
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 10000; i++) {
+                context.fire(DoorEvent.TOGGLE);
+            }
+        });
+
+        assertEquals(80000, actions.get());
+        // 偶数次切换后回到初始状态
+        assertEquals(DoorState.OPEN, context.getState());
+    }
+
+    private static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.tianwj.state.table;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 串行化状态上下文测试
+ *
+ * @author tianwj
+ * @date 2026/10/18 15:20
+ */
+public class SerializedStateContextTest {
+    enum DemoState {
+        IDLE
+    }
+
+    enum DemoEvent {
+        X, A, B, C
+    }
+
+    @Test
+    public void rejectedFireRemovesOnlyItsOwnEvent() {
+        ManualExecutor executor = new ManualExecutor();
+        List<DemoEvent> handled = new ArrayList<>();
+        SerializedStateContext<DemoState, DemoEvent, List<DemoEvent>> context =
+                new SerializedStateContext<>(recordingMachine(), DemoState.IDLE, handled, executor, 1);
+
+        context.fire(DemoEvent.X);
+        context.fire(DemoEvent.A);
+        context.fire(DemoEvent.B);
+        // 处理完 X 后重新提交被拒绝，A、B 留在队列中且没有消费任务
+        executor.rejecting = true;
+        try {
+            executor.runNext();
+            fail("resubmission should be rejected");
+        } catch (RejectedExecutionException expected) {
+            // 执行器拒绝
+        }
+
+        try {
+            context.fire(DemoEvent.A);
+            fail("fire should be rejected");
+        } catch (RejectedExecutionException expected) {
+            // 执行器拒绝，回滚本次投递的 A
+        }
+        assertEquals(2, context.getPendingCount());
+
+        executor.rejecting = false;
+        context.fire(DemoEvent.C);
+        executor.runAll();
+        assertEquals(Arrays.asList(DemoEvent.X, DemoEvent.A, DemoEvent.B, DemoEvent.C), handled);
+        assertEquals(0, context.getPendingCount());
+    }
+
+    @Test
+    public void eventsFromOneThreadAreHandledInOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<DemoEvent> handled = Collections.synchronizedList(new ArrayList<>());
+            SerializedStateContext<DemoState, DemoEvent, List<DemoEvent>> context =
+                    new SerializedStateContext<>(recordingMachine(), DemoState.IDLE, handled, executor, 8);
+            List<DemoEvent> expected = new ArrayList<>();
+            DemoEvent[] events = DemoEvent.values();
+            for (int i = 0; i < 10_000; i++) {
+                DemoEvent event = events[i % events.length];
+                expected.add(event);
+                context.fire(event);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (context.getPendingCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, context.getPendingCount());
+            assertEquals(expected, handled);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentFiresAreAllHandled() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<DemoEvent> handled = Collections.synchronizedList(new ArrayList<>());
+            SerializedStateContext<DemoState, DemoEvent, List<DemoEvent>> context =
+                    new SerializedStateContext<>(recordingMachine(), DemoState.IDLE, handled, executor, 8);
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        context.fire(DemoEvent.A);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (context.getPendingCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, context.getPendingCount());
+            assertEquals(20_000, handled.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static StateMachine<DemoState, DemoEvent, List<DemoEvent>> recordingMachine() {
+        StateMachine<DemoState, DemoEvent, List<DemoEvent>> machine = new StateMachine<>(DemoState.class, DemoEvent.class);
+        for (DemoEvent event : DemoEvent.values()) {
+            machine.addTransition(DemoState.IDLE, event, DemoState.IDLE, null,
+                    (from, fired, to, handled) -> handled.add(fired));
+        }
+        return machine;
+    }
+
+    /**
+     * 由测试线程手动执行任务的执行器，可以切换为拒绝所有任务
+     */
+    private static class ManualExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private boolean rejecting;
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejecting) {
+                throw new RejectedExecutionException("rejecting");
+            }
+            tasks.add(command);
+        }
+
+        void runNext() {
+            tasks.remove(0).run();
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                runNext();
+            }
+        }
+    }
+}
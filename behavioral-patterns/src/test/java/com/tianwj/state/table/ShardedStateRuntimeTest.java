@@ -0,0 +1,118 @@
+package com.tianwj.state.table;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 分片状态机运行时测试
+ *
+ * @author tianwj
+ * @date 2026/10/18 16:45
+ */
+public class ShardedStateRuntimeTest {
+    enum Step {
+        NEW, STARTED, DONE, FAILED
+    }
+
+    enum Signal {
+        START, FINISH, FAIL
+    }
+
+    private ExecutorService executor;
+    private StateMachine<Step, Signal, EntityContext> machine;
+    private AtomicInteger misplaced;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        misplaced = new AtomicInteger();
+        machine = new StateMachine<>(Step.class, Signal.class);
+        machine.addTransition(Step.NEW, Signal.START, Step.STARTED, null, (from, event, to, context) -> {
+            // 实体只能在自己的分片中处理
+            if (context.getShard() != context.getEntityId() / 25) {
+                misplaced.incrementAndGet();
+            }
+        }).addTransition(Step.STARTED, Signal.FINISH, Step.DONE)
+                .addTransition(Step.STARTED, Signal.FAIL, Step.FAILED, null, (from, event, to, context) -> {
+                    throw new IllegalStateException("entity " + context.getEntityId() + " failed");
+                });
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void eventsOfEachEntityKeepSubmissionOrder() {
+        ShardedStateRuntime<Step, Signal> runtime = new ShardedStateRuntime<>(machine, 100, Step.NEW, 4, executor);
+        int[] entityIds = new int[200];
+        Signal[] events = new Signal[200];
+        for (int i = 0; i < 100; i++) {
+            // 偶数实体先 START 再 FINISH，奇数实体先 FINISH 再 START，批次中交错排列
+            entityIds[i] = i;
+            events[i] = i % 2 == 0 ? Signal.START : Signal.FINISH;
+            entityIds[100 + i] = i;
+            events[100 + i] = i % 2 == 0 ? Signal.FINISH : Signal.START;
+        }
+
+        runtime.dispatch(entityIds, events, 200);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("entity " + i, i % 2 == 0 ? Step.DONE : Step.STARTED, runtime.getState(i));
+        }
+        assertEquals(0, misplaced.get());
+        assertEquals(4, runtime.getShardCount());
+    }
+
+    @Test
+    public void invalidEntityIdRejectsWholeBatch() {
+        ShardedStateRuntime<Step, Signal> runtime = new ShardedStateRuntime<>(machine, 100, Step.NEW, 4, executor);
+        try {
+            runtime.dispatch(new int[]{1, 100}, new Signal[]{Signal.START, Signal.START}, 2);
+            fail("out of range entity should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // 实体编号越界
+        }
+
+        assertEquals(Step.NEW, runtime.getState(1));
+    }
+
+    @Test
+    public void failingShardDoesNotStopOtherShards() {
+        ShardedStateRuntime<Step, Signal> runtime = new ShardedStateRuntime<>(machine, 100, Step.STARTED, 4, executor);
+        try {
+            runtime.dispatch(new int[]{0, 30, 60, 90}, new Signal[]{Signal.FAIL, Signal.FINISH, Signal.FINISH, Signal.FINISH}, 4);
+            fail("action failure should propagate");
+        } catch (IllegalStateException expected) {
+            // 分片0的动作抛出异常
+        }
+
+        assertEquals(Step.DONE, runtime.getState(30));
+        assertEquals(Step.DONE, runtime.getState(60));
+        assertEquals(Step.DONE, runtime.getState(90));
+    }
+
+    @Test
+    public void statesCanBeRestoredDirectly() {
+        ShardedStateRuntime<Step, Signal> runtime = new ShardedStateRuntime<>(machine, 10, Step.NEW, 1, executor);
+        runtime.setState(3, Step.STARTED);
+        runtime.dispatch(new int[]{3, 4}, new Signal[]{Signal.FINISH, Signal.FINISH}, 2);
+
+        assertEquals(Step.DONE, runtime.getState(3));
+        assertEquals(Step.NEW, runtime.getState(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shardCountCannotExceedEntityCount() {
+        new ShardedStateRuntime<>(machine, 2, Step.NEW, 3, executor);
+    }
+}
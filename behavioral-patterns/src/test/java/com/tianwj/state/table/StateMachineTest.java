@@ -0,0 +1,100 @@
+package com.tianwj.state.table;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 表驱动状态机测试
+ *
+ * @author tianwj
+ * @date 2026/10/18 16:05
+ */
+public class StateMachineTest {
+    enum OrderState {
+        CREATED, PAID, SHIPPED, CANCELLED
+    }
+
+    enum OrderEvent {
+        PAY, SHIP, CANCEL, REMIND
+    }
+
+    /**
+     * 订单上下文，记录执行过的动作
+     */
+    static class Order {
+        private boolean paymentConfirmed;
+        private final List<String> log = new ArrayList<>();
+    }
+
+    private StateMachine<OrderState, OrderEvent, Order> machine;
+
+    @Before
+    public void setUp() {
+        machine = new StateMachine<>(OrderState.class, OrderEvent.class);
+        machine.addTransition(OrderState.CREATED, OrderEvent.PAY, OrderState.PAID,
+                        (from, event, order) -> order.paymentConfirmed,
+                        (from, event, to, order) -> order.log.add(from + "-" + event + "->" + to))
+                .addTransition(OrderState.PAID, OrderEvent.SHIP, OrderState.SHIPPED)
+                .addTransition(OrderState.CREATED, OrderEvent.CANCEL, OrderState.CANCELLED)
+                .addTransition(OrderState.PAID, OrderEvent.REMIND, OrderState.PAID,
+                        null, (from, event, to, order) -> order.log.add("remind"));
+    }
+
+    @Test
+    public void guardDecidesWhetherTransitionRuns() {
+        Order order = new Order();
+        assertEquals(OrderState.CREATED, machine.fire(OrderState.CREATED, OrderEvent.PAY, order));
+        assertTrue(order.log.isEmpty());
+
+        order.paymentConfirmed = true;
+        assertEquals(OrderState.PAID, machine.fire(OrderState.CREATED, OrderEvent.PAY, order));
+        assertEquals(Collections.singletonList("CREATED-PAY->PAID"), order.log);
+    }
+
+    @Test
+    public void unconfiguredEventKeepsState() {
+        assertFalse(machine.canFire(OrderState.SHIPPED, OrderEvent.CANCEL));
+        assertEquals(OrderState.SHIPPED, machine.fire(OrderState.SHIPPED, OrderEvent.CANCEL, new Order()));
+        assertEquals(OrderState.SHIPPED.ordinal(),
+                machine.fire(OrderState.SHIPPED.ordinal(), OrderEvent.PAY.ordinal(), new Order()));
+    }
+
+    @Test
+    public void contextReportsSelfTransitions() {
+        Order order = new Order();
+        order.paymentConfirmed = true;
+        TableStateContext<OrderState, OrderEvent, Order> context = new TableStateContext<>(machine, OrderState.CREATED, order);
+
+        assertFalse(context.fire(OrderEvent.SHIP));
+        assertTrue(context.fire(OrderEvent.PAY));
+        assertTrue(context.fire(OrderEvent.REMIND));
+        assertEquals(OrderState.PAID, context.getState());
+        assertTrue(context.fire(OrderEvent.SHIP));
+        assertEquals(OrderState.SHIPPED, context.getState());
+        assertEquals(2, order.log.size());
+    }
+
+    @Test
+    public void contextsSharingMachineKeepTheirOwnState() {
+        TableStateContext<OrderState, OrderEvent, Order> cancelled = new TableStateContext<>(machine, OrderState.CREATED, new Order());
+        TableStateContext<OrderState, OrderEvent, Order> open = new TableStateContext<>(machine, OrderState.CREATED, new Order());
+
+        cancelled.fire(OrderEvent.CANCEL);
+
+        assertEquals(OrderState.CANCELLED, cancelled.getState());
+        assertEquals(OrderState.CREATED, open.getState());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateTransitionIsRejected() {
+        machine.addTransition(OrderState.PAID, OrderEvent.SHIP, OrderState.CANCELLED);
+    }
+}
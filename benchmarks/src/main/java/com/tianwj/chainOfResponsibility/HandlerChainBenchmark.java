@@ -0,0 +1,227 @@
+package com.tianwj.chainOfResponsibility;
+
+import com.tianwj.chainOfResponsibility.array.CompiledHandlerChain;
+import com.tianwj.chainOfResponsibility.array.IHandler;
+import com.tianwj.chainOfResponsibility.linkedList.BaseHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 处理器链基准
+ * <p>
+ * 链上是四种不同类型的处理器，对比数组实现、编译后的数组实现和链表实现；
+ * 处理方法2中只有最后一个处理器返回 true，每次请求都会走完整条链
+ *
+ * @author tianwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandlerChainBenchmark {
+    private final Counter counter = new Counter();
+    private com.tianwj.chainOfResponsibility.array.HandlerChain arrayChain;
+    private CompiledHandlerChain compiledChain;
+    private com.tianwj.chainOfResponsibility.linkedList.HandlerChain linkedListChain;
+
+    @Setup
+    public void setup() {
+        arrayChain = new com.tianwj.chainOfResponsibility.array.HandlerChain();
+        arrayChain.addHandler(new ArrayHandlerA(counter));
+        arrayChain.addHandler(new ArrayHandlerB(counter));
+        arrayChain.addHandler(new ArrayHandlerC(counter));
+        arrayChain.addHandler(new ArrayHandlerD(counter));
+        compiledChain = arrayChain.compile();
+
+        linkedListChain = new com.tianwj.chainOfResponsibility.linkedList.HandlerChain();
+        linkedListChain.addHandler(new LinkedHandlerA(counter));
+        linkedListChain.addHandler(new LinkedHandlerB(counter));
+        linkedListChain.addHandler(new LinkedHandlerC(counter));
+        linkedListChain.addHandler(new LinkedHandlerD(counter));
+    }
+
+    @Benchmark
+    public int arrayHandleAll() {
+        arrayChain.handleAll();
+        return counter.value;
+    }
+
+    @Benchmark
+    public int compiledHandleAll() {
+        compiledChain.handleAll();
+        return counter.value;
+    }
+
+    @Benchmark
+    public int arrayHandleConditional() {
+        arrayChain.handleConditional();
+        return counter.value;
+    }
+
+    @Benchmark
+    public boolean compiledHandleConditional() {
+        return compiledChain.handleConditional();
+    }
+
+    @Benchmark
+    public int linkedListHandle() {
+        linkedListChain.handle();
+        return counter.value;
+    }
+
+    public static class Counter {
+        private int value;
+    }
+
+    public static class ArrayHandlerA implements IHandler {
+        private final Counter counter;
+
+        public ArrayHandlerA(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void handleAll() {
+            counter.value++;
+        }
+
+        @Override
+        public boolean handleConditional() {
+            counter.value++;
+            return false;
+        }
+    }
+
+    public static class ArrayHandlerB implements IHandler {
+        private final Counter counter;
+
+        public ArrayHandlerB(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void handleAll() {
+            counter.value += 2;
+        }
+
+        @Override
+        public boolean handleConditional() {
+            counter.value += 2;
+            return false;
+        }
+    }
+
+    public static class ArrayHandlerC implements IHandler {
+        private final Counter counter;
+
+        public ArrayHandlerC(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void handleAll() {
+            counter.value += 3;
+        }
+
+        @Override
+        public boolean handleConditional() {
+            counter.value += 3;
+            return false;
+        }
+    }
+
+    public static class ArrayHandlerD implements IHandler {
+        private final Counter counter;
+
+        public ArrayHandlerD(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void handleAll() {
+            counter.value += 4;
+        }
+
+        @Override
+        public boolean handleConditional() {
+            counter.value += 4;
+            return true;
+        }
+    }
+
+    public static class LinkedHandlerA extends BaseHandler {
+        private final Counter counter;
+
+        public LinkedHandlerA(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void handle() {
+            counter.value++;
+            if (handler != null) {
+                handler.handle();
+            }
+        }
+    }
+
+    public static class LinkedHandlerB extends BaseHandler {
+        private final Counter counter;
+
+        public LinkedHandlerB(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void handle() {
+            counter.value += 2;
+            if (handler != null) {
+                handler.handle();
+            }
+        }
+    }
+
+    public static class LinkedHandlerC extends BaseHandler {
+        private final Counter counter;
+
+        public LinkedHandlerC(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void handle() {
+            counter.value += 3;
+            if (handler != null) {
+                handler.handle();
+            }
+        }
+    }
+
+    public static class LinkedHandlerD extends BaseHandler {
+        private final Counter counter;
+
+        public LinkedHandlerD(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void handle() {
+            counter.value += 4;
+            if (handler != null) {
+                handler.handle();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.tianwj.observer.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订阅方法调用基准
+ * <p>
+ * 对比 {@link Method#invoke} 与 {@link SubscriberInvoker#of(Method)} 生成的调用器，直接调用作为下限
+ *
+ * @author tianwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SubscriberInvokerBenchmark {
+    private final Listener listener = new Listener();
+    private final Object event = "event";
+    private Method method;
+    private SubscriberInvoker invoker;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = Listener.class.getMethod("onEvent", String.class);
+        invoker = SubscriberInvoker.of(method);
+    }
+
+    @Benchmark
+    public int direct() {
+        listener.onEvent((String) event);
+        return listener.count;
+    }
+
+    @Benchmark
+    public int reflection() throws Exception {
+        method.invoke(listener, event);
+        return listener.count;
+    }
+
+    @Benchmark
+    public int invoker() throws Throwable {
+        invoker.invoke(listener, event);
+        return listener.count;
+    }
+
+    public static class Listener {
+        private int count;
+
+        public void onEvent(String event) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.tianwj.observer.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订阅者数量扩展基准
+ * <p>
+ * 同一事件类型上注册 subscribers 个订阅者，分别测量发布一个事件，以及在已缓存分发列表的情况下注册再注销一个订阅者的耗时
+ *
+ * @author tianwj
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SubscriberRegistryBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int subscribers;
+
+    private EventBus eventBus;
+    private Listener extra;
+
+    @Setup
+    public void setup() {
+        eventBus = new EventBus();
+        for (int i = 0; i < subscribers; i++) {
+            eventBus.register(new Listener());
+        }
+        extra = new Listener();
+        // 预先建立分发缓存，注册和注销测量的是缓存的增量更新
+        eventBus.post("warm");
+    }
+
+    @Benchmark
+    public void post() {
+        eventBus.post("event");
+    }
+
+    @Benchmark
+    public void registerUnregister() {
+        eventBus.register(extra);
+        eventBus.unregister(extra);
+    }
+
+    public static class Listener {
+        private int count;
+
+        @Subscribe
+        public void onEvent(String event) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.tianwj.state;
+
+import com.tianwj.state.table.StateMachine;
+import com.tianwj.state.table.TableStateContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 状态机基准
+ * <p>
+ * 对比经典状态模式（每次转移创建新的状态对象）与表驱动状态机（共享转移表，上下文只保存当前状态），
+ * 两者都在 A、B 两个状态之间来回转移
+ *
+ * @author tianwj
+ * @date 2026/10/18 14:30
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateMachineBenchmark {
+    public enum DemoState {
+        A, B
+    }
+
+    public enum DemoEvent {
+        ACTION
+    }
+
+    private StateContext classicContext;
+    private TableStateContext<DemoState, DemoEvent, Void> tableContext;
+
+    @Setup
+    public void setup() {
+        classicContext = new StateContext();
+        StateMachine<DemoState, DemoEvent, Void> machine = new StateMachine<DemoState, DemoEvent, Void>(DemoState.class, DemoEvent.class)
+                .addTransition(DemoState.A, DemoEvent.ACTION, DemoState.B)
+                .addTransition(DemoState.B, DemoEvent.ACTION, DemoState.A);
+        tableContext = new TableStateContext<>(machine, DemoState.A, null);
+    }
+
+    @Benchmark
+    public Object classic() {
+        classicContext.eventAction();
+        return classicContext.getState();
+    }
+
+    @Benchmark
+    public Object table() {
+        tableContext.fire(DemoEvent.ACTION);
+        return tableContext.getState();
+    }
+}